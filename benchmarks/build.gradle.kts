@@ -0,0 +1,28 @@
+plugins {
+    alias(libs.plugins.jmh)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    // the benchmarks run the loader directly, without booting a server
+    jmh(projects.core)
+    // packaged in minecraft, so not exposed by the core project
+    jmh(libs.guava)
+    jmh(libs.fastutil)
+    jmh(libs.jspecify)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // run a subset with -PjmhIncludes=<regex>
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    // results are kept per version, so releases can be compared against each other
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/horizon-${project.version}.json")
+}
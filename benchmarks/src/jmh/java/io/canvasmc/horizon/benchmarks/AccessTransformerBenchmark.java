@@ -0,0 +1,96 @@
+package io.canvasmc.horizon.benchmarks;
+
+import io.canvasmc.horizon.plugin.types.HorizonPlugin;
+import io.canvasmc.horizon.transformer.widener.TransformerContainer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing, compiling, and applying access transformers, with thousands of definitions spread over classes of
+ * 32 definitions each
+ *
+ * @author dueris
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTransformerBenchmark {
+    private static final int DEFINITIONS_PER_CLASS = 32;
+
+    @Param({"1000", "10000"})
+    public int lines;
+
+    private Path directory;
+    private HorizonPlugin plugin;
+    private TransformerContainer locked;
+    private ClassNode[] nodes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("horizon-benchmark");
+
+        final int count = Math.max(1, this.lines / DEFINITIONS_PER_CLASS);
+        final List<String> classes = new ArrayList<>(count);
+        this.nodes = new ClassNode[count];
+        for (int i = 0; i < count; i++) {
+            final String name = "bench/widener/Target" + i;
+            classes.add(name);
+            this.nodes[i] = new ClassNode();
+            new ClassReader(Synthetic.generate(name, DEFINITIONS_PER_CLASS, DEFINITIONS_PER_CLASS)).accept(this.nodes[i], 0);
+        }
+
+        this.plugin = Synthetic.plugin(this.directory, Synthetic.accessTransformers(classes, this.lines));
+        this.locked = this.registerAndLock();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.plugin.file().jarFile().close();
+        Synthetic.delete(this.directory);
+    }
+
+    @Benchmark
+    public TransformerContainer register() {
+        final TransformerContainer container = new TransformerContainer();
+        container.register(this.plugin);
+        return container;
+    }
+
+    @Benchmark
+    public TransformerContainer registerAndLock() {
+        final TransformerContainer container = this.register();
+        container.lock();
+        return container;
+    }
+
+    @Benchmark
+    public ClassNode transformNode() {
+        // applying the same definitions again leaves the node unchanged
+        final ClassNode node = this.nodes[this.next = (this.next + 1) % this.nodes.length];
+        this.locked.transformNode(node);
+        return node;
+    }
+}
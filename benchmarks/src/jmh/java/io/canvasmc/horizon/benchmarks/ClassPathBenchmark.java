@@ -0,0 +1,108 @@
+package io.canvasmc.horizon.benchmarks;
+
+import io.canvasmc.horizon.service.classpath.BufferPool;
+import io.canvasmc.horizon.service.classpath.ClassPathIndex;
+import io.canvasmc.horizon.service.classpath.ClassPathSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks class lookups and reads of the transformation class path against synthetic jars, being the work the
+ * {@link io.canvasmc.horizon.service.EmberClassLoader} does for every class before transforming and defining it. Misses
+ * are split between names in indexed packages, and names in packages no jar contains
+ *
+ * @author dueris
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassPathBenchmark {
+
+    @Param({"32"})
+    public int jars;
+
+    @Param({"1024"})
+    public int classes;
+
+    private Path directory;
+    private ClassPathIndex index;
+    private String[] present;
+    private String[] missing;
+    private String[] unknown;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("horizon-benchmark");
+        this.index = new ClassPathIndex();
+        for (int jar = 0; jar < this.jars; jar++) {
+            this.index.add(Synthetic.jar(this.directory, jar, this.classes));
+        }
+
+        // spread lookups over every jar, as the game does
+        this.present = new String[4096];
+        this.missing = new String[4096];
+        this.unknown = new String[4096];
+        for (int i = 0; i < 4096; i++) {
+            final int jar = i % this.jars;
+            this.present[i] = Synthetic.className(jar, (i * 31) % this.classes) + ".class";
+            this.missing[i] = Synthetic.className(jar, this.classes + i) + ".class";
+            this.unknown[i] = "bench/optional/dependency" + i + "/Missing.class";
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (final ClassPathSource source : this.index.sources()) {
+            source.close();
+        }
+        Synthetic.delete(this.directory);
+    }
+
+    private int next() {
+        return this.next = (this.next + 1) & 4095;
+    }
+
+    @Benchmark
+    public ClassPathSource findPresent() {
+        return this.index.find(this.present[this.next()]);
+    }
+
+    @Benchmark
+    public ClassPathSource findMissing() {
+        return this.index.find(this.missing[this.next()]);
+    }
+
+    @Benchmark
+    public ClassPathSource findUnknownPackage() {
+        return this.index.find(this.unknown[this.next()]);
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        final String name = this.present[this.next()];
+        final ByteBuffer buffer = this.index.find(name).readBuffer(name);
+        final int size = buffer.remaining();
+        BufferPool.release(buffer);
+        return size;
+    }
+}
@@ -0,0 +1,162 @@
+package io.canvasmc.horizon.benchmarks;
+
+import io.canvasmc.horizon.service.transform.ClassHierarchyIndex;
+import io.canvasmc.horizon.service.transform.ClassTransformer;
+import io.canvasmc.horizon.service.transform.TransformPhase;
+import io.canvasmc.horizon.service.transform.TransformationService;
+import io.canvasmc.horizon.transformer.AccessTransformationImpl;
+import io.canvasmc.horizon.util.PrefixFilter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ClassTransformer#transformBytes(String, byte[], TransformPhase)} on a single class, with a service
+ * which never changes the class, with only access transformers, and with a service injecting into every method like
+ * a heavily mixed-in class
+ *
+ * @author dueris
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassTransformerBenchmark {
+    private static final String CLASS_NAME = "bench.transform.Target";
+
+    @Param({"NOOP", "ACCESS_TRANSFORMER", "INJECTING"})
+    public Workload workload;
+
+    @Param({"64"})
+    public int members;
+
+    private Path directory;
+    private ClassTransformer transformer;
+    private byte[] input;
+
+    @Setup
+    public void setup() throws IOException {
+        final String internalName = CLASS_NAME.replace('.', '/');
+        this.directory = Files.createTempDirectory("horizon-benchmark");
+        this.input = Synthetic.generate(internalName, this.members, this.members);
+
+        final TransformationService service = switch (this.workload) {
+            case NOOP -> new NoopService();
+            case ACCESS_TRANSFORMER -> {
+                final AccessTransformationImpl access = new AccessTransformationImpl();
+                access.getContainer().register(Synthetic.plugin(this.directory, Synthetic.accessTransformers(List.of(internalName), this.members)));
+                yield access;
+            }
+            case INJECTING -> new InjectingService();
+        };
+
+        this.transformer = new ClassTransformer(new ClassHierarchyIndex(name -> null), List.of(service), PrefixFilter.empty());
+        this.transformer.preboot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Synthetic.delete(this.directory);
+    }
+
+    @Benchmark
+    public byte[] transformBytes() {
+        return this.transformer.transformBytes(CLASS_NAME, this.input, TransformPhase.INITIALIZE);
+    }
+
+    public enum Workload {
+        NOOP,
+        ACCESS_TRANSFORMER,
+        INJECTING
+    }
+
+    /**
+     * A tree service interested in every class, which never transforms it
+     */
+    public static final class NoopService implements TransformationService {
+
+        @Override
+        public void preboot() {
+        }
+
+        @Override
+        public int priority(final @NonNull TransformPhase phase) {
+            return phase == TransformPhase.INITIALIZE ? 0 : -1;
+        }
+
+        @Override
+        public boolean shouldTransform(final @NonNull Type type, final @NonNull ClassNode node) {
+            return true;
+        }
+
+        @Override
+        public @Nullable ClassNode transform(final @NonNull Type type, final @NonNull ClassNode node, final @NonNull TransformPhase phase) {
+            return null;
+        }
+    }
+
+    /**
+     * A tree service injecting a call to a handler at the head of every method, and adding the handler, like a mixin
+     * injecting into every method of its target
+     */
+    public static final class InjectingService implements TransformationService {
+
+        @Override
+        public void preboot() {
+        }
+
+        @Override
+        public int priority(final @NonNull TransformPhase phase) {
+            return phase == TransformPhase.INITIALIZE ? 0 : -1;
+        }
+
+        @Override
+        public boolean shouldTransform(final @NonNull Type type, final @NonNull ClassNode node) {
+            return true;
+        }
+
+        @Override
+        public @NonNull ClassNode transform(final @NonNull Type type, final @NonNull ClassNode node, final @NonNull TransformPhase phase) {
+            for (final MethodNode method : node.methods) {
+                if (method.name.startsWith("<")) continue;
+
+                final InsnList head = new InsnList();
+                head.add(new VarInsnNode(Opcodes.ILOAD, 1));
+                head.add(new MethodInsnNode(Opcodes.INVOKESTATIC, node.name, "handler$inject", "(I)V", false));
+                method.instructions.insert(head);
+            }
+
+            final MethodNode handler = new MethodNode(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, "handler$inject", "(I)V", null, null);
+            handler.instructions.add(new InsnNode(Opcodes.RETURN));
+            node.methods.add(handler);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.canvasmc.horizon.benchmarks;
+
+import io.canvasmc.horizon.plugin.data.HorizonPluginMetadata;
+import io.canvasmc.horizon.plugin.types.HorizonPlugin;
+import io.canvasmc.horizon.util.FileJar;
+import io.canvasmc.horizon.util.tree.ObjectTree;
+import org.jspecify.annotations.NonNull;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates the synthetic classes, jars, and plugins the benchmarks run against, so results don't depend on a server
+ * jar being available
+ *
+ * @author dueris
+ */
+public final class Synthetic {
+
+    private Synthetic() {
+    }
+
+    /**
+     * Generates a class with int fields, and methods branching over them so every method has stack map frames
+     *
+     * @param internalName
+     *     the internal name of the class
+     * @param fields
+     *     the amount of fields, named {@code field<n>}
+     * @param methods
+     *     the amount of methods, named {@code method<n>} with descriptor {@code (I)I}
+     *
+     * @return the class bytes
+     */
+    public static byte @NonNull [] generate(final @NonNull String internalName, final int fields, final int methods) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+
+        for (int i = 0; i < fields; i++) {
+            writer.visitField(Opcodes.ACC_PRIVATE, "field" + i, "I", null, null).visitEnd();
+        }
+
+        final MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int i = 0; i < methods; i++) {
+            final MethodVisitor method = writer.visitMethod(Opcodes.ACC_PRIVATE, "method" + i, "(I)I", null, null);
+            method.visitCode();
+            final Label negative = new Label();
+            method.visitVarInsn(Opcodes.ILOAD, 1);
+            method.visitJumpInsn(Opcodes.IFLT, negative);
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitFieldInsn(Opcodes.GETFIELD, internalName, "field" + (fields == 0 ? 0 : i % fields), "I");
+            method.visitVarInsn(Opcodes.ILOAD, 1);
+            method.visitInsn(Opcodes.IADD);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitLabel(negative);
+            method.visitLdcInsn(i);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Gets the internal name of a synthetic class
+     *
+     * @param jar
+     *     the index of the jar of the class
+     * @param index
+     *     the index of the class in its jar
+     *
+     * @return the internal name
+     */
+    public static @NonNull String className(final int jar, final int index) {
+        return "bench/jar" + jar + "/pkg" + (index % 16) + "/Class" + index;
+    }
+
+    /**
+     * Writes a jar of synthetic classes, spread over 16 packages
+     *
+     * @param directory
+     *     the directory to write the jar to
+     * @param jar
+     *     the index of the jar, used in the names of its classes
+     * @param classes
+     *     the amount of classes
+     *
+     * @return the path of the jar
+     *
+     * @throws IOException
+     *     if the jar couldn't be written
+     */
+    public static @NonNull Path jar(final @NonNull Path directory, final int jar, final int classes) throws IOException {
+        final Path path = directory.resolve("synthetic-" + jar + ".jar");
+        try (final JarOutputStream out = new JarOutputStream(Files.newOutputStream(path))) {
+            for (int i = 0; i < classes; i++) {
+                final String name = className(jar, i);
+                out.putNextEntry(new JarEntry(name + ".class"));
+                out.write(generate(name, 8, 16));
+                out.closeEntry();
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Generates access transformer lines targeting the fields and methods of {@link #generate(String, int, int)
+     * generated classes}, one class definition followed by its member definitions
+     *
+     * @param classes
+     *     the internal names of the target classes
+     * @param lines
+     *     the total amount of lines
+     *
+     * @return the access transformer lines
+     */
+    public static @NonNull List<String> accessTransformers(final @NonNull List<String> classes, final int lines) {
+        final List<String> result = new ArrayList<>(lines);
+        final int perClass = Math.max(1, lines / classes.size());
+        for (int c = 0; c < classes.size() && result.size() < lines; c++) {
+            final String name = classes.get(c).replace('/', '.');
+            result.add("public-f " + name);
+            for (int i = 1; i < perClass && result.size() < lines; i++) {
+                result.add(i % 2 == 0 ? "public " + name + " field" + (i / 2) : "public " + name + " method" + (i / 2) + "(I)I");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes a plugin jar containing an access transformer, and creates the plugin for it
+     *
+     * @param directory
+     *     the directory to write the jar to
+     * @param lines
+     *     the access transformer lines
+     *
+     * @return the plugin
+     *
+     * @throws IOException
+     *     if the jar couldn't be written
+     */
+    public static @NonNull HorizonPlugin plugin(final @NonNull Path directory, final @NonNull List<String> lines) throws IOException {
+        final Path path = directory.resolve("benchmark-plugin.jar");
+        try (final OutputStream file = Files.newOutputStream(path); final JarOutputStream out = new JarOutputStream(file)) {
+            out.putNextEntry(new JarEntry("benchmark.at"));
+            out.write(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        final HorizonPluginMetadata metadata = new HorizonPluginMetadata(
+            "benchmark", List.of(), "Benchmark", "", "1.0.0", List.of(), List.of(), List.of(),
+            false, List.of(), List.of("benchmark.at"), ObjectTree.builder().build(),
+            new HorizonPluginMetadata.NestedData(new HashSet<>(), new HashSet<>(), new HashSet<>())
+        );
+        return new HorizonPlugin(new FileJar(path.toFile(), new JarFile(path.toFile())), metadata, null);
+    }
+
+    /**
+     * Deletes a directory and everything inside it
+     *
+     * @param directory
+     *     the directory to delete
+     *
+     * @throws IOException
+     *     if a file couldn't be deleted
+     */
+    public static void delete(final @NonNull Path directory) throws IOException {
+        try (final Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
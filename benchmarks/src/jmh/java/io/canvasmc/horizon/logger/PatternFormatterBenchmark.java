@@ -0,0 +1,51 @@
+package io.canvasmc.horizon.logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PatternFormatter#format(LogEntry, Object[])} with the pattern of the main Horizon logger. Lives in
+ * the logger package, as the formatter is internal
+ *
+ * @author dueris
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatternFormatterBenchmark {
+    private static final Object[] ARGUMENTS = {"net.minecraft.server.MinecraftServer", 42};
+
+    private PatternFormatter formatter;
+    private LogEntry plain;
+    private LogEntry parameterized;
+
+    @Setup
+    public void setup() {
+        this.formatter = new PatternFormatter("[{date: HH:mm:ss}] [{level}/{tag}]: {message}");
+        this.plain = new LogEntry(Level.INFO, "Loading libraries, please wait...", "main", null);
+        this.parameterized = new LogEntry(Level.DEBUG, "Transformed class {} with ({}) services", "main", null);
+    }
+
+    @Benchmark
+    public String formatPlain() {
+        return this.formatter.format(this.plain, null);
+    }
+
+    @Benchmark
+    public String formatParameterized() {
+        return this.formatter.format(this.parameterized, ARGUMENTS);
+    }
+}
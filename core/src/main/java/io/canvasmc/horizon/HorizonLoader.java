@@ -6,9 +6,13 @@ import io.canvasmc.horizon.instrument.patch.ServerPatcherEntrypoint;
 import io.canvasmc.horizon.logger.Level;
 import io.canvasmc.horizon.logger.Logger;
 import io.canvasmc.horizon.logger.stream.OutStream;
+import io.canvasmc.horizon.metrics.HorizonFlightRecorder;
+import io.canvasmc.horizon.plugin.NestedJarCache;
+import io.canvasmc.horizon.plugin.PluginIndex;
 import io.canvasmc.horizon.plugin.PluginTree;
 import io.canvasmc.horizon.plugin.data.HorizonPluginMetadata;
 import io.canvasmc.horizon.plugin.types.HorizonPlugin;
+import io.canvasmc.horizon.service.transform.TransformCache;
 import io.canvasmc.horizon.transformer.AccessTransformationImpl;
 import io.canvasmc.horizon.transformer.MixinTransformationImpl;
 import io.canvasmc.horizon.util.FileJar;
@@ -159,6 +163,7 @@ public class HorizonLoader {
         if (Boolean.getBoolean("paper.useLegacyPluginLoading")) {
             throw new IllegalStateException("Legacy plugin loading is unsupported with Horizon");
         }
+        HorizonFlightRecorder.start();
         String version;
         JarFile sourceJar;
         try {
@@ -199,9 +204,9 @@ public class HorizonLoader {
         // load properties and start horizon init
         ServerProperties properties = ServerProperties.load(args);
 
-        // cleanup directory for plugins
+        // cleanup directory for plugins, keeping the transformed class and nested jar caches, and the plugin index, between boots
         File cacheDirectory = properties.cacheLocation();
-        Util.clearDirectory(cacheDirectory);
+        Util.clearDirectory(cacheDirectory, Set.of(TransformCache.DIRECTORY, NestedJarCache.DIRECTORY, PluginIndex.FILE));
 
         new HorizonLoader(properties, version, javaInstrumentation, initialClasspath, args);
     }
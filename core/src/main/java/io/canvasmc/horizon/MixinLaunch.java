@@ -1,12 +1,16 @@
 package io.canvasmc.horizon;
 
 import com.llamalad7.mixinextras.MixinExtrasBootstrap;
+import io.canvasmc.horizon.metrics.HorizonMetrics;
 import io.canvasmc.horizon.plugin.types.HorizonPlugin;
 import io.canvasmc.horizon.service.BootstrapMixinService;
 import io.canvasmc.horizon.service.EmberClassLoader;
 import io.canvasmc.horizon.service.transform.ClassTransformer;
+import io.canvasmc.horizon.service.transform.TransformCache;
 import io.canvasmc.horizon.service.transform.TransformationService;
+import io.canvasmc.horizon.transformer.MixinTransformationImpl;
 import io.canvasmc.horizon.util.ClassLoaders;
+import io.canvasmc.horizon.util.PrefixFilter;
 import org.jspecify.annotations.NonNull;
 import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -27,15 +31,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
-import java.util.regex.Pattern;
 
 import static io.canvasmc.horizon.HorizonLoader.LOGGER;
 
@@ -44,16 +51,23 @@ public final class MixinLaunch {
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     private static final Optional<Manifest> DEFAULT_MANIFEST = Optional.of(new Manifest());
 
-    public static final Pattern TRANSFORMATION_EXCLUDED_PATTERN = Pattern.compile(
-        "^(?:" +
-            "io\\.canvasmc\\.horizon\\.(?!inject\\.)" + "|" +
-            "org\\.tinylog\\." + "|" +
-            "org\\.spongepowered\\.asm\\." + "|" +
-            "com\\.llamalad7\\.mixinextras\\." + "|" +
-            "org\\.slf4j\\." + "|" +
-            "org\\.apache\\.logging\\.log4j\\." +
-            ").*"
-    );
+    /**
+     * Whether known transformation targets are transformed in parallel ahead of time, toggled with
+     * {@code -DHorizon.pretransform=true}
+     */
+    public static final boolean PRETRANSFORM = Boolean.getBoolean("Horizon.pretransform");
+
+    public static final String[] TRANSFORMATION_EXCLUDED_PACKAGES = {
+        "io.canvasmc.horizon.",
+        "org.tinylog.",
+        "org.spongepowered.asm.",
+        "com.llamalad7.mixinextras.",
+        "org.slf4j.",
+        "org.apache.logging.log4j."
+    };
+    public static final String[] TRANSFORMATION_INCLUDED_PACKAGES = {
+        "io.canvasmc.horizon.inject."
+    };
     public static final String[] TRANSFORMATION_EXCLUDED_RESOURCES = {
         "org/spongepowered/asm/"
     };
@@ -68,6 +82,7 @@ public final class MixinLaunch {
     }
 
     void run() {
+        HorizonMetrics.register();
         this.classLoader = new EmberClassLoader(Arrays.asList(this.context.initialGameConnections));
         this.transformer = this.classLoader.transformer;
 
@@ -100,6 +115,7 @@ public final class MixinLaunch {
                 try (final JarFile file = new JarFile(this.context.gameJar.toFile())) {
                     String target = file.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
                     LOGGER.info("Launching {}", target);
+                    if (PRETRANSFORM) this.pretransform();
                     Thread runThread = new Thread(() -> {
                         try {
                             // when we load this class, all plugin mixin jsons are loaded, and as a result
@@ -165,10 +181,11 @@ public final class MixinLaunch {
         return true;
     }
 
-    private @NonNull Predicate<String> packageFilter() {
-        return name -> {
-            return !name.matches(TRANSFORMATION_EXCLUDED_PATTERN.pattern());
-        };
+    private @NonNull PrefixFilter packageFilter() {
+        return PrefixFilter.builder()
+            .exclude(TRANSFORMATION_EXCLUDED_PACKAGES)
+            .include(TRANSFORMATION_INCLUDED_PACKAGES)
+            .build();
     }
 
     private @NonNull Function<URLConnection, Optional<Manifest>> manifestLocator() {
@@ -205,16 +222,10 @@ public final class MixinLaunch {
         };
     }
 
-    private @NonNull Predicate<String> resourceFilter() {
-        return path -> {
-            for (final String test : TRANSFORMATION_EXCLUDED_RESOURCES) {
-                if (path.startsWith(test)) {
-                    return false;
-                }
-            }
-
-            return true;
-        };
+    private @NonNull PrefixFilter resourceFilter() {
+        return PrefixFilter.builder()
+            .exclude(TRANSFORMATION_EXCLUDED_RESOURCES)
+            .build();
     }
 
     private void prepareMixin(@NonNull MixinPluginLoader pluginLoader) {
@@ -232,14 +243,43 @@ public final class MixinLaunch {
             LOGGER.error(exception, "Failed to complete mixin bootstrap!");
         }
 
-        for (final TransformationService transformer : this.transformer.getServices()) {
-            transformer.preboot();
+        this.transformer.preboot();
+
+        // all services are prepared, so the transformation environment is now stable
+        if (TransformCache.ENABLED) {
+            final File cacheLocation = HorizonLoader.getInstance().getProperties().cacheLocation();
+            this.transformer.enableCache(cacheLocation.toPath().resolve(TransformCache.DIRECTORY));
         }
 
         // init mixin extras
         MixinExtrasBootstrap.init();
     }
 
+    private void pretransform() {
+        // mixin only resolves the targets of its configs once it selects them
+        this.transformer.getService(MixinTransformationImpl.class).selectConfigs();
+
+        final Set<String> targets = new HashSet<>();
+        for (final TransformationService service : this.transformer.getServices()) {
+            for (final String target : service.knownTargets()) {
+                targets.add(target.replace('/', '.'));
+            }
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Horizon Pretransform Worker #" + thread.getPoolIndex());
+            thread.setContextClassLoader(this.classLoader);
+            return thread;
+        }, null, false);
+
+        final long start = System.nanoTime();
+        this.classLoader.pretransform(targets, pool).whenComplete((ignored, thrown) -> {
+            pool.shutdown();
+            LOGGER.debug("Pretransformed {} classes in {}ms", targets.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
     public EmberClassLoader getClassLoader() {
         return classLoader;
     }
@@ -1,6 +1,7 @@
 package io.canvasmc.horizon;
 
 import io.canvasmc.horizon.logger.Logger;
+import io.canvasmc.horizon.metrics.event.PluginPhaseEvent;
 import io.canvasmc.horizon.plugin.LoadContext;
 import io.canvasmc.horizon.plugin.PluginTree;
 import io.canvasmc.horizon.plugin.phase.Phase;
@@ -69,8 +70,16 @@ public class MixinPluginLoader {
             Object result = null;
 
             for (Phase<?, ?> phase : PHASES) {
+                final PluginPhaseEvent event = new PluginPhaseEvent();
+                event.begin();
                 try {
                     result = executePhase(phase, result, context);
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.phase = phase.getName();
+                        if (result instanceof List<?> plugins) event.plugins = plugins.size();
+                        event.commit();
+                    }
                 } catch (Throwable e) {
                     throw new RuntimeException("Phase '" + phase.getName() + "' failed due to an unexpected exception", e);
                 }
@@ -0,0 +1,96 @@
+package io.canvasmc.horizon.inject;
+
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.canvasmc.horizon.metrics.HorizonMetrics;
+import io.canvasmc.horizon.service.transform.TransformPhase;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.ConsoleCommandSender;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class HorizonCommand {
+    private static final String METRICS_PERMISSION = "horizon.command.metrics";
+    private static final int SHOWN_SOURCES = 10;
+
+    private static int executeMetrics(final @NonNull CommandSourceStack source) {
+        final HorizonMetrics metrics = HorizonMetrics.get();
+        Component msg = (source.getSender() instanceof ConsoleCommandSender ? Component.newline() : Component.empty())
+            .append(Component.text("Horizon Metrics:").color(NamedTextColor.LIGHT_PURPLE));
+
+        msg = msg.appendNewline().append(Component.text("Transformers:").color(NamedTextColor.AQUA));
+        for (final Map.Entry<TransformPhase, Map<String, HorizonMetrics.ServiceCounters>> phase : metrics.services().entrySet()) {
+            final List<Map.Entry<String, HorizonMetrics.ServiceCounters>> services = phase.getValue().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, HorizonMetrics.ServiceCounters> entry) -> entry.getValue().transformNanos()).reversed())
+                .toList();
+            for (final Map.Entry<String, HorizonMetrics.ServiceCounters> service : services) {
+                final HorizonMetrics.ServiceCounters counters = service.getValue();
+                msg = msg.appendNewline()
+                    .append(Component.text("- ").color(NamedTextColor.DARK_GRAY))
+                    .append(Component.text(simpleName(service.getKey())).color(NamedTextColor.GREEN))
+                    .append(Component.text(" (" + phase.getKey() + ") ").color(NamedTextColor.DARK_GRAY))
+                    .append(Component.text(counters.transformed() + "/" + counters.examined() + " transformed, "
+                        + millis(counters.shouldTransformNanos()) + " filtering, "
+                        + millis(counters.transformNanos()) + " transforming").color(NamedTextColor.GRAY));
+            }
+        }
+
+        msg = msg.appendNewline().append(Component.text("Class Writer:").color(NamedTextColor.AQUA));
+        for (final Map.Entry<TransformPhase, HorizonMetrics.WriterCounters> phase : metrics.writers().entrySet()) {
+            final HorizonMetrics.WriterCounters counters = phase.getValue();
+            msg = msg.appendNewline()
+                .append(Component.text("- ").color(NamedTextColor.DARK_GRAY))
+                .append(Component.text(phase.getKey().name()).color(NamedTextColor.GREEN))
+                .append(Component.text(" " + counters.classes() + " classes, " + millis(counters.nanos()) + ", "
+                    + kilobytes(counters.bytesIn()) + " in, " + kilobytes(counters.bytesOut()) + " out").color(NamedTextColor.GRAY));
+        }
+
+        msg = msg.appendNewline().append(Component.text("Class Lookups:").color(NamedTextColor.AQUA));
+        final List<Map.Entry<Path, HorizonMetrics.LookupCounters>> sources = metrics.lookups().entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<Path, HorizonMetrics.LookupCounters> entry) -> entry.getValue().nanos()).reversed())
+            .limit(SHOWN_SOURCES)
+            .toList();
+        for (final Map.Entry<Path, HorizonMetrics.LookupCounters> entry : sources) {
+            msg = msg.appendNewline().append(lookup(String.valueOf(entry.getKey().getFileName()), entry.getValue()));
+        }
+        msg = msg.appendNewline().append(lookup("not found", metrics.misses()));
+
+        source.getSender().sendMessage(msg);
+        return 0;
+    }
+
+    private static @NonNull Component lookup(final @NonNull String name, final HorizonMetrics.@NonNull LookupCounters counters) {
+        final long average = counters.lookups() == 0 ? 0 : counters.nanos() / counters.lookups();
+        return Component.text("- ").color(NamedTextColor.DARK_GRAY)
+            .append(Component.text(name).color(NamedTextColor.GREEN))
+            .append(Component.text(" " + counters.lookups() + " lookups, " + millis(counters.nanos())
+                + ", " + TimeUnit.NANOSECONDS.toMicros(average) + "µs average").color(NamedTextColor.GRAY));
+    }
+
+    private static @NonNull String simpleName(final @NonNull String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static @NonNull String millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+    }
+
+    private static @NonNull String kilobytes(final long bytes) {
+        return (bytes / 1024) + "KiB";
+    }
+
+    public static LiteralCommandNode<CommandSourceStack> create() {
+        return Commands.literal("horizon")
+            .requires((source) -> source.getSender().hasPermission(METRICS_PERMISSION))
+            .then(Commands.literal("metrics")
+                .executes((context) -> executeMetrics(context.getSource())))
+            .build();
+    }
+}
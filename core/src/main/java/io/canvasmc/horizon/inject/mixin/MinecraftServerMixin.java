@@ -0,0 +1,18 @@
+package io.canvasmc.horizon.inject.mixin;
+
+import io.canvasmc.horizon.HorizonLoader;
+import net.minecraft.server.MinecraftServer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(MinecraftServer.class)
+public class MinecraftServerMixin {
+
+    @Inject(method = "runServer", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/MinecraftServer;initServer()Z", shift = At.Shift.AFTER))
+    private void horizon$discardPretransformed(final CallbackInfo ci) {
+        // the server has booted, classes which weren't requested by now are unlikely to ever be
+        HorizonLoader.getInstance().getLaunchService().getClassLoader().discardPretransformed();
+    }
+}
@@ -1,6 +1,7 @@
 package io.canvasmc.horizon.inject.mixin.commandinject;
 
 import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.canvasmc.horizon.inject.HorizonCommand;
 import io.canvasmc.horizon.inject.HorizonPluginsCommand;
 import io.papermc.paper.command.PaperCommands;
 import io.papermc.paper.command.brigadier.CommandRegistrationFlag;
@@ -9,7 +10,9 @@ import org.jspecify.annotations.NonNull;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.List;
 import java.util.Set;
@@ -25,4 +28,9 @@ public abstract class PaperCommandsMixin {
     private static void horizon$redirectPluginsCommand(final LiteralCommandNode<CommandSourceStack> node, final String namespace, final String description, final @NonNull List<String> aliases, final Set<CommandRegistrationFlag> flags) {
         registerInternalCommand(aliases.contains("pl") ? HorizonPluginsCommand.create() : node, namespace, description, aliases, flags);
     }
+
+    @Inject(method = "registerCommands()V", at = @At("TAIL"))
+    private static void horizon$registerHorizonCommand(final CallbackInfo ci) {
+        registerInternalCommand(HorizonCommand.create(), "horizon", "Horizon loader commands", List.of(), Set.of());
+    }
 }
@@ -4,7 +4,6 @@ import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
 import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
 import io.canvasmc.horizon.HorizonLoader;
 import io.canvasmc.horizon.service.EmberClassLoader;
-import io.canvasmc.horizon.service.transform.TransformPhase;
 import io.papermc.paper.plugin.entrypoint.classloader.PaperSimplePluginClassLoader;
 import org.jspecify.annotations.NonNull;
 import org.spongepowered.asm.mixin.Mixin;
@@ -21,8 +20,8 @@ public class PaperSimplePluginClassLoaderMixin {
         HorizonLoader horizon = HorizonLoader.getInstance();
         EmberClassLoader ember = horizon.getLaunchService().getClassLoader();
 
-        // Note: we use TransformPhase.INITIALIZE
-        final byte[] transformed = ember.transformer.transformBytes(name, originalClassBytes, TransformPhase.INITIALIZE);
+        // Note: this uses TransformPhase.INITIALIZE, memoized across reloads of the plugin
+        final byte[] transformed = ember.transformer.transformPluginBytes(instance, codeSource, name, originalClassBytes);
 
         // call the original function again with the swapped variables
         return original.call(instance, name, transformed, off, transformed.length, codeSource);
@@ -68,7 +68,7 @@ record PatchEntry(
         return list.toArray(new PatchEntry[0]);
     }
 
-    public void applyPatch(
+    public boolean applyPatch(
         Map<String, Map<String, URL>> urls,
         @NonNull Path originalRootDir,
         @NonNull Path repoDir
@@ -81,7 +81,7 @@ record PatchEntry(
 
         if (Files.exists(outputFile) && Util.isFileValid(outputFile, outputHash)) {
             urls.get(location).put(originalPath, outputFile.toUri().toURL());
-            return;
+            return true;
         }
 
         announceOnce();
@@ -108,6 +108,7 @@ record PatchEntry(
         }
 
         urls.get(location).put(originalPath, outputFile.toUri().toURL());
+        return false;
     }
 
     private void announceOnce() {
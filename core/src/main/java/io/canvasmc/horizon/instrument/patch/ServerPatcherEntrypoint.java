@@ -1,6 +1,7 @@
 package io.canvasmc.horizon.instrument.patch;
 
 import io.canvasmc.horizon.HorizonLoader;
+import io.canvasmc.horizon.metrics.event.ServerSetupEvent;
 import io.canvasmc.horizon.util.Util;
 import org.jetbrains.annotations.ApiStatus;
 import org.jspecify.annotations.NonNull;
@@ -56,9 +57,13 @@ public final class ServerPatcherEntrypoint {
     }
 
     private static @NonNull Path downloadOriginalJar(DownloadContext ctx, Path repoDir) {
+        final ServerSetupEvent event = new ServerSetupEvent();
+        event.begin();
         try {
             ctx.download(repoDir);
-            return ctx.getOutputFile(repoDir);
+            final Path output = ctx.getOutputFile(repoDir);
+            commit(event, ServerSetupEvent.DOWNLOAD, output, false);
+            return output;
         } catch (Throwable thrown) {
             throw Util.kill("Failed to download original jar", thrown);
         }
@@ -98,7 +103,10 @@ public final class ServerPatcherEntrypoint {
             try (FileSystem fs = FileSystems.newFileSystem(originalJar)) {
                 Path root = fs.getPath("/");
                 for (PatchEntry p : patches) {
-                    p.applyPatch(urls, root, repoDir);
+                    final ServerSetupEvent event = new ServerSetupEvent();
+                    event.begin();
+                    final boolean reused = p.applyPatch(urls, root, repoDir);
+                    commit(event, ServerSetupEvent.PATCH, repoDir.resolve(p.location()).resolve(p.outputPath()), reused);
                 }
             } catch (IOException e) {
                 throw Util.kill("Failed to apply patches", e);
@@ -166,9 +174,12 @@ public final class ServerPatcherEntrypoint {
     ) throws IOException {
 
         final Path outputFile = outDir.resolve(entry.path());
+        final ServerSetupEvent event = new ServerSetupEvent();
+        event.begin();
 
         if (Files.exists(outputFile) && Util.isFileValid(outputFile, entry.hash())) {
             urls.put(entry.path(), outputFile.toUri().toURL());
+            commit(event, ServerSetupEvent.EXTRACT, outputFile, true);
             return;
         }
 
@@ -191,6 +202,17 @@ public final class ServerPatcherEntrypoint {
 
         LOGGER.info("Unpacking Jar {} to {}", entry.id, outputFile);
         urls.put(entry.path(), outputFile.toUri().toURL());
+        commit(event, ServerSetupEvent.EXTRACT, outputFile, false);
+    }
+
+    private static void commit(@NonNull ServerSetupEvent event, String step, @NonNull Path target, boolean reused) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.step = step;
+        event.target = target.toString();
+        event.reused = reused;
+        event.commit();
     }
 
     private static @NonNull InputStream readFromPatcherOrOriginal(@NonNull String filePath, Path originalRoot)
@@ -0,0 +1,71 @@
+package io.canvasmc.horizon.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * Starts a flight recording of the Horizon boot with the bundled {@value #SETTINGS} settings, toggled with
+ * {@code -DHorizon.flightRecording=<file>}. The recording is written to the file when the JVM exits
+ *
+ * @author dueris
+ */
+public final class HorizonFlightRecorder {
+    /**
+     * The file to write the boot recording to, or {@code null} if not enabled
+     */
+    public static final String DESTINATION = System.getProperty("Horizon.flightRecording");
+    /**
+     * The name of the bundled flight recorder settings resource
+     */
+    public static final String SETTINGS = "horizon.jfc";
+
+    private HorizonFlightRecorder() {
+    }
+
+    /**
+     * Loads the bundled flight recorder settings
+     *
+     * @return the settings
+     *
+     * @throws IOException
+     *     if the settings couldn't be read
+     * @throws ParseException
+     *     if the settings are malformed
+     */
+    public static @NonNull Configuration settings() throws IOException, ParseException {
+        try (InputStream stream = HorizonFlightRecorder.class.getClassLoader().getResourceAsStream(SETTINGS)) {
+            if (stream == null) throw new IOException("Missing bundled " + SETTINGS);
+            return Configuration.create(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Starts the boot recording, if enabled
+     */
+    public static void start() {
+        if (DESTINATION == null || !FlightRecorder.isAvailable()) return;
+
+        try {
+            final Recording recording = new Recording(settings());
+            recording.setName("Horizon");
+            recording.setToDisk(true);
+            recording.setDumpOnExit(true);
+            recording.setDestination(Path.of(DESTINATION));
+            recording.start();
+            LOGGER.info("Started flight recording, writing to {} on exit", DESTINATION);
+        } catch (final IOException | ParseException exception) {
+            LOGGER.error(exception, "Failed to start flight recording");
+        }
+    }
+}
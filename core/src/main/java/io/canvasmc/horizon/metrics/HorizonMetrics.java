@@ -0,0 +1,348 @@
+package io.canvasmc.horizon.metrics;
+
+import io.canvasmc.horizon.service.transform.TransformPhase;
+import org.jspecify.annotations.NonNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * The metrics registry for class loading and transformation. Counters are contended by every class loading thread,
+ * so all of them are {@link LongAdder}s, and are only summed up when read
+ *
+ * @author dueris
+ */
+public final class HorizonMetrics implements HorizonMetricsMXBean {
+    /**
+     * The JMX object name the metrics are registered under
+     */
+    public static final String OBJECT_NAME = "io.canvasmc.horizon:type=Metrics";
+
+    private static final HorizonMetrics INSTANCE = new HorizonMetrics();
+
+    private final Map<TransformPhase, ConcurrentMap<String, ServiceCounters>> services = new EnumMap<>(TransformPhase.class);
+    private final Map<TransformPhase, WriterCounters> writers = new EnumMap<>(TransformPhase.class);
+    private final ConcurrentMap<Path, LookupCounters> lookups = new ConcurrentHashMap<>();
+    private final LookupCounters misses = new LookupCounters();
+
+    private HorizonMetrics() {
+        for (final TransformPhase phase : TransformPhase.values()) {
+            this.services.put(phase, new ConcurrentHashMap<>());
+            this.writers.put(phase, new WriterCounters());
+        }
+    }
+
+    /**
+     * Gets the metrics registry
+     *
+     * @return the registry
+     */
+    public static @NonNull HorizonMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, if not already registered
+     */
+    public static void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+        } catch (final JMException exception) {
+            LOGGER.error(exception, "Failed to register metrics MBean");
+        }
+    }
+
+    /**
+     * Gets the counters of a transformation service in a phase
+     *
+     * @param service
+     *     the class name of the service
+     * @param phase
+     *     the transformation phase
+     *
+     * @return the counters
+     */
+    public @NonNull ServiceCounters service(final @NonNull String service, final @NonNull TransformPhase phase) {
+        final ConcurrentMap<String, ServiceCounters> counters = this.services.get(phase);
+        final ServiceCounters existing = counters.get(service);
+        return existing != null ? existing : counters.computeIfAbsent(service, key -> new ServiceCounters());
+    }
+
+    /**
+     * Gets the counters of the class writer in a phase
+     *
+     * @param phase
+     *     the transformation phase
+     *
+     * @return the counters
+     */
+    public @NonNull WriterCounters writer(final @NonNull TransformPhase phase) {
+        return this.writers.get(phase);
+    }
+
+    /**
+     * Gets the lookup counters of a class path source
+     *
+     * @param source
+     *     the path of the source
+     *
+     * @return the counters
+     */
+    public @NonNull LookupCounters lookup(final @NonNull Path source) {
+        final LookupCounters existing = this.lookups.get(source);
+        return existing != null ? existing : this.lookups.computeIfAbsent(source, key -> new LookupCounters());
+    }
+
+    /**
+     * Gets the lookup counters of classes no class path source contained
+     *
+     * @return the counters
+     */
+    public @NonNull LookupCounters misses() {
+        return this.misses;
+    }
+
+    /**
+     * Gets the counters of every service, per phase
+     *
+     * @return the service counters
+     */
+    public @NonNull Map<TransformPhase, Map<String, ServiceCounters>> services() {
+        return Collections.unmodifiableMap(this.services);
+    }
+
+    /**
+     * Gets the counters of the class writer, per phase
+     *
+     * @return the writer counters
+     */
+    public @NonNull Map<TransformPhase, WriterCounters> writers() {
+        return Collections.unmodifiableMap(this.writers);
+    }
+
+    /**
+     * Gets the lookup counters of every class path source
+     *
+     * @return the lookup counters
+     */
+    public @NonNull Map<Path, LookupCounters> lookups() {
+        return Collections.unmodifiableMap(this.lookups);
+    }
+
+    @Override
+    public Map<String, Long> getServiceCounters() {
+        final Map<String, Long> counters = new TreeMap<>();
+        this.services.forEach((phase, services) -> services.forEach((service, counter) -> {
+            final String prefix = service + "/" + phase + "/";
+            counters.put(prefix + "examined", counter.examined());
+            counters.put(prefix + "transformed", counter.transformed());
+            counters.put(prefix + "shouldTransformNanos", counter.shouldTransformNanos());
+            counters.put(prefix + "transformNanos", counter.transformNanos());
+        }));
+        return counters;
+    }
+
+    @Override
+    public Map<String, Long> getWriterCounters() {
+        final Map<String, Long> counters = new TreeMap<>();
+        this.writers.forEach((phase, counter) -> {
+            final String prefix = phase + "/";
+            counters.put(prefix + "classes", counter.classes());
+            counters.put(prefix + "bytesIn", counter.bytesIn());
+            counters.put(prefix + "bytesOut", counter.bytesOut());
+            counters.put(prefix + "nanos", counter.nanos());
+        });
+        return counters;
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounters() {
+        final Map<String, Long> counters = new TreeMap<>();
+        this.lookups.forEach((source, counter) -> {
+            final String prefix = source.getFileName() + "/";
+            counters.merge(prefix + "lookups", counter.lookups(), Long::sum);
+            counters.merge(prefix + "nanos", counter.nanos(), Long::sum);
+        });
+        counters.put("<miss>/lookups", this.misses.lookups());
+        counters.put("<miss>/nanos", this.misses.nanos());
+        return counters;
+    }
+
+    @Override
+    public void reset() {
+        // counters are reset in place, as recording threads may still hold them
+        this.services.values().forEach(services -> services.values().forEach(ServiceCounters::reset));
+        this.writers.values().forEach(WriterCounters::reset);
+        this.lookups.values().forEach(LookupCounters::reset);
+        this.misses.reset();
+    }
+
+    /**
+     * The counters of a single transformation service in a single phase
+     *
+     * @author dueris
+     */
+    public static final class ServiceCounters {
+        private final LongAdder examined = new LongAdder();
+        private final LongAdder transformed = new LongAdder();
+        private final LongAdder shouldTransformNanos = new LongAdder();
+        private final LongAdder transformNanos = new LongAdder();
+
+        /**
+         * Records a call to {@link io.canvasmc.horizon.service.transform.TransformationService#shouldTransform}, or to
+         * {@link io.canvasmc.horizon.service.transform.VisitorTransformationService#visitor} for visitor services
+         *
+         * @param nanos
+         *     the time taken
+         */
+        public void recordShouldTransform(final long nanos) {
+            this.examined.increment();
+            this.shouldTransformNanos.add(nanos);
+        }
+
+        /**
+         * Records a class rejected by {@link io.canvasmc.horizon.service.transform.TransformationService#interested}
+         * from its name alone
+         */
+        public void recordRejected() {
+            this.examined.increment();
+        }
+
+        /**
+         * Records a call to {@link io.canvasmc.horizon.service.transform.TransformationService#transform}, or the share
+         * of a visitor service in a pass of its visitor over the class
+         *
+         * @param nanos
+         *     the time taken
+         * @param transformed
+         *     if the service transformed the class
+         */
+        public void recordTransform(final long nanos, final boolean transformed) {
+            if (transformed) this.transformed.increment();
+            this.transformNanos.add(nanos);
+        }
+
+        void reset() {
+            this.examined.reset();
+            this.transformed.reset();
+            this.shouldTransformNanos.reset();
+            this.transformNanos.reset();
+        }
+
+        public long examined() {
+            return this.examined.sum();
+        }
+
+        public long transformed() {
+            return this.transformed.sum();
+        }
+
+        public long shouldTransformNanos() {
+            return this.shouldTransformNanos.sum();
+        }
+
+        public long transformNanos() {
+            return this.transformNanos.sum();
+        }
+    }
+
+    /**
+     * The counters of the class writer in a single phase
+     *
+     * @author dueris
+     */
+    public static final class WriterCounters {
+        private final LongAdder classes = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        /**
+         * Records writing a transformed class
+         *
+         * @param bytesIn
+         *     the size of the original class
+         * @param bytesOut
+         *     the size of the transformed class
+         * @param nanos
+         *     the time taken to write the class
+         */
+        public void record(final int bytesIn, final int bytesOut, final long nanos) {
+            this.classes.increment();
+            this.bytesIn.add(bytesIn);
+            this.bytesOut.add(bytesOut);
+            this.nanos.add(nanos);
+        }
+
+        void reset() {
+            this.classes.reset();
+            this.bytesIn.reset();
+            this.bytesOut.reset();
+            this.nanos.reset();
+        }
+
+        public long classes() {
+            return this.classes.sum();
+        }
+
+        public long bytesIn() {
+            return this.bytesIn.sum();
+        }
+
+        public long bytesOut() {
+            return this.bytesOut.sum();
+        }
+
+        public long nanos() {
+            return this.nanos.sum();
+        }
+    }
+
+    /**
+     * The class lookup counters of a single class path source
+     *
+     * @author dueris
+     */
+    public static final class LookupCounters {
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        /**
+         * Records a class lookup
+         *
+         * @param nanos
+         *     the time taken to locate and read the class
+         */
+        public void record(final long nanos) {
+            this.lookups.increment();
+            this.nanos.add(nanos);
+        }
+
+        void reset() {
+            this.lookups.reset();
+            this.nanos.reset();
+        }
+
+        public long lookups() {
+            return this.lookups.sum();
+        }
+
+        public long nanos() {
+            return this.nanos.sum();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.canvasmc.horizon.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link HorizonMetrics}, registered as {@value HorizonMetrics#OBJECT_NAME}. Every counter is
+ * keyed by its subject and name, like {@code io.example.Transformer/INITIALIZE/transformNanos}
+ *
+ * @author dueris
+ */
+public interface HorizonMetricsMXBean {
+
+    /**
+     * Gets the counters of every transformation service, per phase
+     *
+     * @return the service counters
+     */
+    Map<String, Long> getServiceCounters();
+
+    /**
+     * Gets the counters of the class writer, per phase
+     *
+     * @return the writer counters
+     */
+    Map<String, Long> getWriterCounters();
+
+    /**
+     * Gets the class lookup counters of every class path source
+     *
+     * @return the lookup counters
+     */
+    Map<String, Long> getLookupCounters();
+
+    /**
+     * Resets all counters to zero
+     */
+    void reset();
+}
@@ -0,0 +1,32 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each target class validated when the access transformers are locked
+ *
+ * @author dueris
+ */
+@Name(AccessTransformerValidationEvent.NAME)
+@Label("Access Transformer Validation")
+@Description("The validation of the access transformer definitions of a target class")
+@Category({"Horizon", "Boot"})
+@StackTrace(false)
+public final class AccessTransformerValidationEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.AccessTransformerValidation";
+
+    @Label("Target")
+    public String target;
+
+    @Label("Definitions")
+    public int definitions;
+
+    @Label("Failed")
+    @Description("Whether any definition couldn't be located in the target class")
+    public boolean failed;
+}
@@ -0,0 +1,46 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each class passed through the transformation services, spanning reading, transforming, and writing the
+ * class
+ *
+ * @author dueris
+ */
+@Name(ClassTransformEvent.NAME)
+@Label("Class Transformation")
+@Description("A class passed through the Horizon transformation services")
+@Category({"Horizon", "Transformation"})
+@StackTrace(false)
+public final class ClassTransformEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.ClassTransform";
+
+    @Label("Class")
+    public String className;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Services")
+    @Description("The services which transformed the class, separated by commas")
+    public String services;
+
+    @Label("Cached")
+    @Description("Whether the output was served from the transformation cache")
+    public boolean cached;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputSize;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputSize;
+}
@@ -0,0 +1,37 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each artifact resolved by the {@link io.canvasmc.horizon.util.resolver.DependencyResolver}
+ *
+ * @author dueris
+ */
+@Name(DependencyResolveEvent.NAME)
+@Label("Dependency Resolution")
+@Description("The resolution of a single library artifact")
+@Category({"Horizon", "Boot"})
+@StackTrace(false)
+public final class DependencyResolveEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.DependencyResolve";
+
+    @Label("Artifact")
+    public String artifact;
+
+    @Label("Repository")
+    @Description("The repository the artifact was downloaded from, or null if it was already present")
+    public String repository;
+
+    @Label("Downloaded")
+    public boolean downloaded;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+}
@@ -0,0 +1,29 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each phase of the plugin loader, spanning the execution of the phase
+ *
+ * @author dueris
+ */
+@Name(PluginPhaseEvent.NAME)
+@Label("Plugin Loader Phase")
+@Description("A phase of the Horizon plugin loader")
+@Category({"Horizon", "Boot"})
+@StackTrace(false)
+public final class PluginPhaseEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.PluginPhase";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Plugins")
+    @Description("The amount of plugins output by the phase, or -1 if the output is not a plugin list")
+    public int plugins = -1;
+}
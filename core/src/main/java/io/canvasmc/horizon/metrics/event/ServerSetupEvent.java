@@ -0,0 +1,39 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each step of setting up the server classpath, being the download of the original jar, the extraction
+ * of each bundled jar, and the application of each patch
+ *
+ * @author dueris
+ */
+@Name(ServerSetupEvent.NAME)
+@Label("Server Classpath Setup")
+@Description("A step of downloading, extracting, or patching the server classpath")
+@Category({"Horizon", "Boot"})
+@StackTrace(false)
+public final class ServerSetupEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.ServerSetup";
+
+    public static final String DOWNLOAD = "download";
+    public static final String EXTRACT = "extract";
+    public static final String PATCH = "patch";
+
+    @Label("Step")
+    @Description("The step of the setup, one of download, extract, or patch")
+    public String step;
+
+    @Label("Target")
+    @Description("The path of the file the step produced")
+    public String target;
+
+    @Label("Reused")
+    @Description("Whether a valid output from a previous boot was reused")
+    public boolean reused;
+}
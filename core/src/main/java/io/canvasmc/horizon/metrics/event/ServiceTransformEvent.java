@@ -0,0 +1,36 @@
+package io.canvasmc.horizon.metrics.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each transformation service transforming a class, spanning the
+ * {@link io.canvasmc.horizon.service.transform.TransformationService#transform} call
+ *
+ * @author dueris
+ */
+@Name(ServiceTransformEvent.NAME)
+@Label("Service Transformation")
+@Description("A single transformation service transforming a class")
+@Category({"Horizon", "Transformation"})
+@StackTrace(false)
+public final class ServiceTransformEvent extends Event {
+    public static final String NAME = "io.canvasmc.horizon.ServiceTransform";
+
+    @Label("Class")
+    public String className;
+
+    @Label("Service")
+    public String service;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Transformed")
+    @Description("Whether the service returned a transformed class")
+    public boolean transformed;
+}
@@ -0,0 +1,146 @@
+package io.canvasmc.horizon.plugin;
+
+import io.canvasmc.horizon.service.classpath.NestedJarSource;
+import io.canvasmc.horizon.service.transform.TransformCache;
+import io.canvasmc.horizon.util.Util;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static io.canvasmc.horizon.MixinPluginLoader.LOGGER;
+
+/**
+ * A persistent store of extracted jar-in-jar entries, kept between boots.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the fingerprint of the outer jar, and the name, CRC, and size of the nested
+ * entry, all read from the central directory of the outer jar, so an unchanged nested jar is never extracted twice.
+ * Every entry used during discovery is marked, and the entries left unmarked are swept once discovery completes
+ *
+ * @author dueris
+ */
+public final class NestedJarCache {
+    /**
+     * The name of the cache directory, relative to the Horizon cache location
+     */
+    public static final String DIRECTORY = "jars";
+
+    private final Path directory;
+    private final Set<String> marked = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    private NestedJarCache(final @NonNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the nested jar cache
+     *
+     * @param root
+     *     the root cache directory
+     *
+     * @return the opened cache
+     *
+     * @throws IOException
+     *     if the cache directory couldn't be created
+     */
+    public static @NonNull NestedJarCache open(final @NonNull Path root) throws IOException {
+        Files.createDirectories(root);
+        return new NestedJarCache(root);
+    }
+
+    /**
+     * Computes the key of a nested jar entry
+     *
+     * @param fingerprint
+     *     the fingerprint of the outer jar
+     * @param entry
+     *     the nested entry
+     *
+     * @return the entry key
+     */
+    public static @NonNull String key(final byte @NonNull [] fingerprint, final @NonNull JarEntry entry) {
+        final MessageDigest digest = TransformCache.newDigest();
+        digest.update(fingerprint);
+        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(Long.BYTES * 2).putLong(entry.getCrc()).putLong(entry.getSize()).flip());
+        return TransformCache.toKey(digest);
+    }
+
+    /**
+     * Gets the extracted file for a nested jar entry, extracting it if it isn't cached yet, and marks it as used
+     *
+     * @param jar
+     *     the outer jar
+     * @param entry
+     *     the nested entry
+     * @param key
+     *     the entry key, from {@link #key(byte[], JarEntry)}
+     * @param fileName
+     *     the file name of the extracted jar
+     *
+     * @return the extracted file, or {@code null} if the file name escapes the cache directory
+     *
+     * @throws IOException
+     *     if the entry couldn't be extracted
+     */
+    public @Nullable File extract(final @NonNull JarFile jar, final @NonNull JarEntry entry, final @NonNull String key, final @NonNull String fileName) throws IOException {
+        final Path target = this.directory.resolve(key).resolve(fileName).normalize();
+        if (!target.startsWith(this.directory.resolve(key))) {
+            return null;
+        }
+
+        this.marked.add(key);
+        // classes are read from the outer jar, the extracted copy is only for loaders that need a file
+        NestedJarSource.register(target, Path.of(jar.getName()), entry.getName(), entry.getMethod() == JarEntry.STORED, entry.getSize());
+        // jars are scanned in parallel, and may nest the same jar
+        synchronized (this.locks.computeIfAbsent(key, k -> new Object())) {
+            if (Files.isRegularFile(target) && Files.size(target) == entry.getSize()) {
+                LOGGER.debug("Reusing cached nested jar {}", fileName);
+                return target.toFile();
+            }
+
+            Files.createDirectories(target.getParent());
+            final Path temporary = Files.createTempFile(target.getParent(), key, ".tmp");
+            try (InputStream in = jar.getInputStream(entry)) {
+                Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return target.toFile();
+        }
+    }
+
+    /**
+     * Deletes every entry that wasn't marked since this cache was opened
+     */
+    public void sweep() {
+        int swept = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (final Path child : stream) {
+                if (this.marked.contains(child.getFileName().toString())) continue;
+                Util.clearDirectory(child.toFile());
+                Files.deleteIfExists(child);
+                swept++;
+            }
+        } catch (final IOException exception) {
+            LOGGER.error(exception, "Failed to sweep nested jar cache");
+        }
+        LOGGER.debug("Swept {} unused nested jars, keeping {}", swept, this.marked.size());
+    }
+}
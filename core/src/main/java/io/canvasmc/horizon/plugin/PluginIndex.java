@@ -0,0 +1,438 @@
+package io.canvasmc.horizon.plugin;
+
+import io.canvasmc.horizon.HorizonLoader;
+import io.canvasmc.horizon.plugin.data.EntrypointObject;
+import io.canvasmc.horizon.plugin.data.HorizonPluginMetadata;
+import io.canvasmc.horizon.util.MinecraftVersion;
+import io.canvasmc.horizon.util.tree.ObjectTree;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.canvasmc.horizon.MixinPluginLoader.LOGGER;
+
+/**
+ * A persistent index of what discovery found in each plugin jar, kept between boots.
+ * <p>
+ * Records are keyed by the absolute path of the jar, and are only used while the size and modification time of the jar
+ * still match, so unchanged jars are loaded without reading or parsing their plugin metadata. A record holds the parsed
+ * {@link HorizonPluginMetadata} and the classified nested entries of a Horizon plugin, the name of a server plugin, or
+ * that the jar is neither. Records of jars not seen during discovery are dropped when the index is saved, and the
+ * whole index is discarded once Horizon is updated, as discovery may read plugins differently
+ *
+ * @author dueris
+ */
+public final class PluginIndex {
+    /**
+     * Whether the plugin index is enabled, toggled with {@code -DHorizon.pluginIndex=false}
+     */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("Horizon.pluginIndex", "true"));
+    /**
+     * The name of the index file, relative to the Horizon cache location
+     */
+    public static final String FILE = "plugins.idx";
+
+    private static final int MAGIC = 0x48504958;
+    private static final int VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+
+    private final Path file;
+    private final Map<String, Record> previous;
+    private final Map<String, Record> current = new ConcurrentHashMap<>();
+
+    private PluginIndex(final @NonNull Path file, final @NonNull Map<String, Record> previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * Opens the plugin index, starting empty if the index is disabled, missing, or unreadable
+     *
+     * @param file
+     *     the index file
+     *
+     * @return the opened index
+     */
+    public static @NonNull PluginIndex open(final @NonNull Path file) {
+        if (!ENABLED) return new PluginIndex(file, Map.of());
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !readString(in).equals(HorizonLoader.getInstance().getHorizonVersion())) {
+                LOGGER.debug("Discarding plugin index of another version");
+                return new PluginIndex(file, Map.of());
+            }
+
+            final int count = in.readInt();
+            final Map<String, Record> records = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                records.put(readString(in), readRecord(in));
+            }
+            LOGGER.debug("Read {} plugin index records", count);
+            return new PluginIndex(file, records);
+        } catch (final NoSuchFileException ignored) {
+            return new PluginIndex(file, Map.of());
+        } catch (final IOException | RuntimeException exception) {
+            LOGGER.debug("Discarding unreadable plugin index: {}", exception.getMessage());
+            return new PluginIndex(file, Map.of());
+        }
+    }
+
+    /**
+     * Gets the record of a jar, if the jar is unchanged since it was recorded
+     *
+     * @param jar
+     *     the jar
+     *
+     * @return the record, or {@code null} if there is none or the jar changed
+     */
+    public @Nullable Record get(final @NonNull File jar) {
+        final String key = key(jar);
+        final Record record = this.previous.get(key);
+        if (record == null || record.size() != jar.length() || record.modified() != jar.lastModified()) return null;
+
+        this.current.put(key, record);
+        return record;
+    }
+
+    /**
+     * Records what discovery found in a jar
+     *
+     * @param jar
+     *     the jar
+     * @param serverPlugin
+     *     the name of the server plugin, if the jar is one
+     * @param metadata
+     *     the metadata of the Horizon plugin, if the jar is one
+     * @param nested
+     *     the nested entries of the Horizon plugin
+     */
+    public void put(final @NonNull File jar, final @Nullable String serverPlugin, final @Nullable HorizonPluginMetadata metadata, final @NonNull List<Nested> nested) {
+        if (!ENABLED) return;
+        this.current.put(key(jar), new Record(jar.length(), jar.lastModified(), serverPlugin, metadata, List.copyOf(nested)));
+    }
+
+    /**
+     * Writes every record used or added since this index was opened, replacing the index file atomically
+     */
+    public void save() {
+        if (!ENABLED) return;
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            final Path temporary = Files.createTempFile(this.file.getParent(), FILE, ".tmp");
+            try {
+                final List<byte[]> records = new ArrayList<>(this.current.size());
+                for (final Map.Entry<String, Record> entry : this.current.entrySet()) {
+                    final byte[] record = encode(entry.getKey(), entry.getValue());
+                    if (record != null) records.add(record);
+                }
+
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    writeString(out, HorizonLoader.getInstance().getHorizonVersion());
+                    out.writeInt(records.size());
+                    for (final byte[] record : records) {
+                        out.write(record);
+                    }
+                }
+                Files.move(temporary, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.debug("Wrote {} plugin index records", records.size());
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException exception) {
+            LOGGER.error(exception, "Failed to write plugin index");
+        }
+    }
+
+    private static @NonNull String key(final @NonNull File jar) {
+        return jar.toPath().toAbsolutePath().normalize().toString();
+    }
+
+    private static byte @Nullable [] encode(final @NonNull String key, final @NonNull Record record) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, key);
+            writeRecord(out, record);
+        } catch (final IOException exception) {
+            // only values this index can't represent, the jar is parsed again next boot
+            LOGGER.debug("Not indexing {}: {}", key, exception.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecord(final @NonNull DataOutputStream out, final @NonNull Record record) throws IOException {
+        out.writeLong(record.size());
+        out.writeLong(record.modified());
+        writeNullableString(out, record.serverPlugin());
+
+        final HorizonPluginMetadata metadata = record.metadata();
+        out.writeBoolean(metadata != null);
+        if (metadata == null) return;
+
+        writeString(out, metadata.id());
+        writeStrings(out, metadata.provides());
+        writeString(out, metadata.name());
+        writeString(out, metadata.description());
+        writeString(out, metadata.version());
+        out.writeInt(metadata.entrypoints().size());
+        for (final EntrypointObject entrypoint : metadata.entrypoints()) {
+            writeString(out, entrypoint.key());
+            writeString(out, entrypoint.clazz());
+            out.writeInt(entrypoint.order());
+        }
+        writeStrings(out, metadata.transformers());
+        writeStrings(out, metadata.transformerExclusions());
+        writeStrings(out, metadata.authors());
+        out.writeBoolean(metadata.loadDatapackEntry());
+        writeStrings(out, metadata.mixins());
+        writeStrings(out, metadata.wideners());
+        writeValue(out, metadata.dependencies().toRawMap());
+
+        out.writeInt(record.nested().size());
+        for (final Nested nested : record.nested()) {
+            out.writeByte(nested.type().ordinal());
+            writeString(out, nested.entryName());
+            writeString(out, nested.key());
+            writeString(out, nested.fileName());
+        }
+    }
+
+    private static @NonNull Record readRecord(final @NonNull DataInputStream in) throws IOException {
+        final long size = in.readLong();
+        final long modified = in.readLong();
+        final String serverPlugin = readNullableString(in);
+        if (!in.readBoolean()) return new Record(size, modified, serverPlugin, null, List.of());
+
+        final String id = readString(in);
+        final List<String> provides = List.copyOf(readStrings(in));
+        final String name = readString(in);
+        final String description = readString(in);
+        final String version = readString(in);
+        final int entrypointCount = in.readInt();
+        final List<EntrypointObject> entrypoints = new ArrayList<>(entrypointCount);
+        for (int i = 0; i < entrypointCount; i++) {
+            entrypoints.add(new EntrypointObject(readString(in), readString(in), in.readInt()));
+        }
+        final List<String> transformers = readStrings(in);
+        final List<String> transformerExclusions = readStrings(in);
+        final List<String> authors = readStrings(in);
+        final boolean loadDatapackEntry = in.readBoolean();
+        final List<String> mixins = readStrings(in);
+        final List<String> wideners = readStrings(in);
+        @SuppressWarnings("unchecked") final Map<String, Object> dependencies = (Map<String, Object>) readValue(in);
+
+        final int nestedCount = in.readInt();
+        final List<Nested> nested = new ArrayList<>(nestedCount);
+        for (int i = 0; i < nestedCount; i++) {
+            nested.add(new Nested(Nested.Type.values()[in.readByte()], readString(in), readString(in), readString(in)));
+        }
+
+        final HorizonPluginMetadata metadata = new HorizonPluginMetadata(
+            id, provides, name, description, version, entrypoints, transformers, authors,
+            loadDatapackEntry, mixins, wideners,
+            ObjectTree.builder()
+                .registerConverter(MinecraftVersion.class, value -> MinecraftVersion.fromStringId(value.toString()))
+                .putAll(dependencies)
+                .build(),
+            new HorizonPluginMetadata.NestedData(new HashSet<>(), new HashSet<>(), new HashSet<>()), transformerExclusions
+        );
+        return new Record(size, modified, serverPlugin, metadata, List.copyOf(nested));
+    }
+
+    private static void writeValue(final @NonNull DataOutputStream out, final @Nullable Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String string -> {
+                out.writeByte(STRING);
+                writeString(out, string);
+            }
+            case Boolean bool -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            }
+            case Integer integer -> {
+                out.writeByte(INTEGER);
+                out.writeInt(integer);
+            }
+            case Long number -> {
+                out.writeByte(LONG);
+                out.writeLong(number);
+            }
+            case Double number -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(number);
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (final Object element : list) {
+                    writeValue(out, element);
+                }
+            }
+            case Map<?, ?> map -> {
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, entry.getKey().toString());
+                    writeValue(out, entry.getValue());
+                }
+            }
+            default -> throw new IOException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static @Nullable Object readValue(final @NonNull DataInputStream in) throws IOException {
+        final byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case BOOLEAN -> in.readBoolean();
+            case INTEGER -> in.readInt();
+            case LONG -> in.readLong();
+            case DOUBLE -> in.readDouble();
+            case LIST -> {
+                final int size = in.readInt();
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case MAP -> {
+                final int size = in.readInt();
+                final Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                yield map;
+            }
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeStrings(final @NonNull DataOutputStream out, final @NonNull List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (final String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static @NonNull List<String> readStrings(final @NonNull DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeNullableString(final @NonNull DataOutputStream out, final @Nullable String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) writeString(out, string);
+    }
+
+    private static @Nullable String readNullableString(final @NonNull DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeString(final @NonNull DataOutputStream out, final @NonNull String string) throws IOException {
+        // not writeUTF, which is limited to 65535 bytes
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NonNull String readString(final @NonNull DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * What discovery found in a jar
+     *
+     * @param size
+     *     the size of the jar when it was recorded
+     * @param modified
+     *     the modification time of the jar when it was recorded
+     * @param serverPlugin
+     *     the name of the server plugin, if the jar is one
+     * @param metadata
+     *     the metadata of the Horizon plugin, if the jar is one
+     * @param nested
+     *     the nested entries of the Horizon plugin
+     *
+     * @author dueris
+     */
+    public record Record(long size, long modified, @Nullable String serverPlugin, @Nullable HorizonPluginMetadata metadata, List<Nested> nested) {
+
+        /**
+         * Gets the recorded metadata with empty nested data, as the nested data is filled during discovery
+         *
+         * @return the metadata, or {@code null} if the jar isn't a Horizon plugin
+         */
+        public @Nullable HorizonPluginMetadata freshMetadata() {
+            final HorizonPluginMetadata m = this.metadata;
+            if (m == null) return null;
+            return new HorizonPluginMetadata(
+                m.id(), m.provides(), m.name(), m.description(), m.version(), new ArrayList<>(m.entrypoints()),
+                new ArrayList<>(m.transformers()), new ArrayList<>(m.authors()),
+                m.loadDatapackEntry(), new ArrayList<>(m.mixins()), new ArrayList<>(m.wideners()), m.dependencies(),
+                new HorizonPluginMetadata.NestedData(new HashSet<>(), new HashSet<>(), new HashSet<>()), new ArrayList<>(m.transformerExclusions())
+            );
+        }
+    }
+
+    /**
+     * A classified nested entry of a Horizon plugin
+     *
+     * @param type
+     *     the type of the nested jar
+     * @param entryName
+     *     the entry name of the nested jar in the plugin jar
+     * @param key
+     *     the {@link NestedJarCache#key(byte[], java.util.jar.JarEntry) nested jar cache key}
+     * @param fileName
+     *     the file name of the extracted jar
+     *
+     * @author dueris
+     */
+    public record Nested(Type type, String entryName, String key, String fileName) {
+
+        public enum Type {
+            HORIZON,
+            PLUGIN,
+            LIBRARY
+        }
+    }
+}
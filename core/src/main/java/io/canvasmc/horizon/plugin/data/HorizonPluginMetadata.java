@@ -46,6 +46,8 @@ import java.util.regex.Pattern;
  *     the dependencies
  * @param nesting
  *     the nested data of the plugin
+ * @param transformerExclusions
+ *     the class name prefixes this plugin excludes from transformation
  *
  * @author dueris
  * @see io.canvasmc.horizon.plugin.data.HorizonPluginMetadata.NestedData
@@ -63,7 +65,8 @@ public record HorizonPluginMetadata(
     List<String> mixins,
     List<String> wideners,
     ObjectTree dependencies,
-    NestedData nesting
+    NestedData nesting,
+    List<String> transformerExclusions
 ) {
     private static final Pattern TAKEN_NAMES = Pattern.compile("^(?i)(minecraft|java|asm|horizon|bukkit|mojang|spigot|paper|mixin)$");
     private static final Pattern VALID_IDENTIFIER = Pattern.compile("^[a-z][a-z0-9_.-]{1,63}$");
@@ -106,6 +109,9 @@ public record HorizonPluginMetadata(
         List<String> transformers = root.getArrayOptional("transformers")
             .map((arr) -> arr.asList(String.class))
             .orElse(new ArrayList<>());
+        List<String> transformerExclusions = root.getArrayOptional("transformer_exclusions")
+            .map((arr) -> arr.asList(String.class))
+            .orElse(new ArrayList<>());
 
         boolean loadDatapackEntry = root.getValueSafe("load_datapack_entry").asBooleanOptional().orElse(false);
         String description = root.getValueSafe("description").asStringOptional().orElse("");
@@ -126,7 +132,7 @@ public record HorizonPluginMetadata(
             List.copyOf(provides),
             name, description, version, entrypoints, transformers, authors,
             loadDatapackEntry, mixins, wideners, root.getTreeOptional("dependencies").orElse(ObjectTree.builder().build()),
-            new NestedData(new HashSet<>(), new HashSet<>(), new HashSet<>())
+            new NestedData(new HashSet<>(), new HashSet<>(), new HashSet<>()), transformerExclusions
         );
     };
 
@@ -141,6 +147,44 @@ public record HorizonPluginMetadata(
         );
     };
 
+    /**
+     * Creates Horizon plugin data which excludes nothing from transformation
+     *
+     * @param id
+     *     the stable plugin identifier
+     * @param provides
+     *     additional identifiers this plugin provides
+     * @param name
+     *     the display name
+     * @param description
+     *     the description
+     * @param version
+     *     the version
+     * @param entrypoints
+     *     the entrypoints registered by this plugin
+     * @param transformers
+     *     the class transformers registered by this plugin
+     * @param authors
+     *     the authors
+     * @param loadDatapackEntry
+     *     if Horizon should load the plugin as a datapack too
+     * @param mixins
+     *     the registered mixins
+     * @param wideners
+     *     the registered wideners
+     * @param dependencies
+     *     the dependencies
+     * @param nesting
+     *     the nested data of the plugin
+     */
+    public HorizonPluginMetadata(
+        String id, List<String> provides, String name, String description, String version, List<EntrypointObject> entrypoints,
+        List<String> transformers, List<String> authors, boolean loadDatapackEntry, List<String> mixins, List<String> wideners,
+        ObjectTree dependencies, NestedData nesting
+    ) {
+        this(id, provides, name, description, version, entrypoints, transformers, authors, loadDatapackEntry, mixins, wideners, dependencies, nesting, List.of());
+    }
+
     @Contract("_, _ -> param1")
     private static @NonNull String validateIdentifier(final @NonNull String identifier, final String fieldName) {
         final String normalized = identifier.toLowerCase(Locale.ROOT);
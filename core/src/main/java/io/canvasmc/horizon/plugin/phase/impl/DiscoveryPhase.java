@@ -2,29 +2,45 @@ package io.canvasmc.horizon.plugin.phase.impl;
 
 import io.canvasmc.horizon.HorizonLoader;
 import io.canvasmc.horizon.plugin.LoadContext;
+import io.canvasmc.horizon.plugin.NestedJarCache;
+import io.canvasmc.horizon.plugin.PluginIndex;
 import io.canvasmc.horizon.plugin.data.EntrypointObject;
 import io.canvasmc.horizon.plugin.data.HorizonPluginMetadata;
 import io.canvasmc.horizon.plugin.phase.Phase;
 import io.canvasmc.horizon.plugin.phase.PhaseException;
 import io.canvasmc.horizon.service.BootstrapMixinService;
+import io.canvasmc.horizon.service.transform.TransformCache;
 import io.canvasmc.horizon.util.FileJar;
 import io.canvasmc.horizon.util.MinecraftVersion;
 import io.canvasmc.horizon.util.Pair;
 import io.canvasmc.horizon.util.Util;
 import io.canvasmc.horizon.util.tree.Format;
 import io.canvasmc.horizon.util.tree.ObjectTree;
+import io.canvasmc.horizon.util.tree.parser.YamlParser;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -39,38 +55,93 @@ public class DiscoveryPhase implements Phase<Void, Set<Pair<FileJar, HorizonPlug
     private static final String JIJ_PATH_PAPER = "META-INF/jars/plugin/";
     private static final String JIJ_PATH_LIB = "META-INF/jars/libs/";
 
-    private static void loadServerPlugin(final JarEntry jarEntry, final InputStream instream, final @NonNull FileJar pluginJar) throws Throwable {
-        ObjectTree pluginYaml = ObjectTree.read().format(Format.YAML).from(instream);
-        final String name = pluginYaml.getValueOrThrow("name").asString();
-        // inject into setup classloader
-        BootstrapMixinService.loadToInit(pluginJar.ioFile().toURI().toURL(), name);
+    private static @NonNull String readServerPluginName(final InputStream instream) throws Throwable {
+        // only the name is needed, so the yml is streamed instead of parsed into a tree
+        String name = YamlParser.readTopLevel(instream, Set.of("name")).get("name");
+        if (name == null) {
+            throw new NoSuchElementException("Key not found: name");
+        }
+        return name;
+    }
+
+    private static @Nullable String serverPluginName(final @NonNull FileJar pluginJar, final @NonNull PluginIndex index) throws Throwable {
+        PluginIndex.Record indexed = index.get(pluginJar.ioFile());
+        if (indexed != null) {
+            return indexed.serverPlugin();
+        }
+
+        JarEntry jarEntry = JarContents.of(pluginJar.jarFile()).server();
+        String name = null;
+        if (jarEntry != null) {
+            try (InputStream instream = pluginJar.jarFile().getInputStream(jarEntry)) {
+                name = readServerPluginName(instream);
+            }
+        }
+        index.put(pluginJar.ioFile(), name, null, List.of());
+        return name;
     }
 
     @Override
     public Set<Pair<FileJar, HorizonPluginMetadata>> execute(Void input, @NonNull LoadContext context) throws PhaseException {
         Set<Pair<FileJar, HorizonPluginMetadata>> candidates = new HashSet<>();
         File pluginsDirectory = context.pluginsDirectory();
+        List<Path> files;
 
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(
             pluginsDirectory.toPath().toAbsolutePath(),
             path -> Files.isRegularFile(path) && path.toString().endsWith(".jar"))) {
 
             // also try and parse extra plugins
-            Set<Path> files = HorizonLoader.getInstance().getProperties().extraPlugins().stream().map(File::toPath).collect(Collectors.toSet());
-            stream.forEach(files::add);
+            Set<Path> unique = HorizonLoader.getInstance().getProperties().extraPlugins().stream().map(File::toPath).collect(Collectors.toSet());
+            stream.forEach(unique::add);
+            // sorted, so server plugins are added to the setup classloader in the same order every boot
+            files = unique.stream().sorted().toList();
+        } catch (IOException e) {
+            throw new PhaseException("Failed to scan plugins directory", e);
+        }
 
+        NestedJarCache cache;
+        try {
+            cache = NestedJarCache.open(context.cacheDirectory().toPath().resolve(NestedJarCache.DIRECTORY));
+        } catch (IOException e) {
+            throw new PhaseException("Failed to open nested jar cache", e);
+        }
+        PluginIndex index = PluginIndex.open(context.cacheDirectory().toPath().resolve(PluginIndex.FILE));
+
+        // each jar is scanned on its own virtual thread, as scanning is mostly reading and inflating entries
+        List<Future<Scan>> futures = new ArrayList<>(files.size());
+        try (ExecutorService service = Executors.newVirtualThreadPerTaskExecutor()) {
             for (Path path : files) {
                 File child = path.toFile();
-                LOGGER.debug("Scanning potential plugin: {}", child.getName());
-
-                Optional<Pair<FileJar, HorizonPluginMetadata>> candidate = scanJarFile(child);
-                candidate.ifPresent(candidates::add);
+                futures.add(service.submit(() -> {
+                    LOGGER.debug("Scanning potential plugin: {}", child.getName());
+                    List<ServerPlugin> serverPlugins = new ArrayList<>();
+                    return new Scan(scanJarFile(child, cache, index, serverPlugins), serverPlugins);
+                }));
             }
 
-        } catch (IOException e) {
-            throw new PhaseException("Failed to scan plugins directory", e);
+            for (int i = 0; i < futures.size(); i++) {
+                Scan scan;
+                try {
+                    scan = futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PhaseException("Plugin discovery interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new PhaseException("Failed to scan plugin " + files.get(i).getFileName(), e.getCause());
+                }
+
+                scan.candidate().ifPresent(candidates::add);
+                // inject into setup classloader
+                for (ServerPlugin serverPlugin : scan.serverPlugins()) {
+                    BootstrapMixinService.loadToInit(serverPlugin.url(), serverPlugin.name());
+                }
+            }
         }
 
+        // every nested jar and index record still in use has been marked by now
+        cache.sweep();
+        index.save();
         LOGGER.debug("Discovered {} plugin candidates", candidates.size());
         return candidates;
     }
@@ -80,164 +151,209 @@ public class DiscoveryPhase implements Phase<Void, Set<Pair<FileJar, HorizonPlug
         return "Discovery";
     }
 
-    private Optional<Pair<FileJar, HorizonPluginMetadata>> scanJarFile(File jarFile) {
+    private Optional<Pair<FileJar, HorizonPluginMetadata>> scanJarFile(File jarFile, NestedJarCache cache, PluginIndex index, List<ServerPlugin> serverPlugins) {
         try {
-            JarFile jar = new JarFile(jarFile);
-            Optional<JarEntry> entry = jar.stream()
-                .filter(e -> !e.isDirectory())
-                .filter(e -> e.getName().equalsIgnoreCase("horizon.plugin.json"))
-                .findFirst();
-
-            if (entry.isEmpty()) {
-                LOGGER.debug("No horizon json found in {}", jarFile.getName());
-                // check if is spigot or paper plugin
-                entry = jar.stream()
-                    .filter(e -> !e.isDirectory())
-                    .filter(e -> e.getName().equalsIgnoreCase("paper-plugin.yml") ||
-                        e.getName().equalsIgnoreCase("plugin.yml"))
-                    .findFirst();
-                // if is spigot or paper plugin, load into backup
-                if (entry.isPresent()) {
-                    try (InputStream in = jar.getInputStream(entry.get())) {
-                        loadServerPlugin(entry.get(), in, new FileJar(jarFile, jar));
-                    } catch (Throwable thrown) {
-                        LOGGER.error(thrown, "Couldn't load server plugin {}", entry.get().getName());
-                        return Optional.empty();
+            JarFile jar = null;
+            String serverPlugin = null;
+            HorizonPluginMetadata metadata = null;
+            List<PluginIndex.Nested> nestedEntries = List.of();
+
+            PluginIndex.Record indexed = index.get(jarFile);
+            if (indexed != null) {
+                // unchanged since it was indexed, so nothing needs to be read or parsed
+                LOGGER.debug("Using indexed plugin data for {}", jarFile.getName());
+                serverPlugin = indexed.serverPlugin();
+                metadata = indexed.freshMetadata();
+                nestedEntries = indexed.nested();
+            }
+            else {
+                jar = new JarFile(jarFile);
+                // a single pass over the central directory finds every entry we need
+                JarContents contents = JarContents.of(jar);
+
+                if (contents.horizon() == null) {
+                    LOGGER.debug("No horizon json found in {}", jarFile.getName());
+                    JarEntry entry = contents.server();
+                    if (entry != null) {
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            serverPlugin = readServerPluginName(in);
+                        } catch (Throwable thrown) {
+                            LOGGER.error(thrown, "Couldn't load server plugin {}", entry.getName());
+                            return Optional.empty();
+                        }
+                    }
+                }
+                else {
+                    try (InputStream in = jar.getInputStream(contents.horizon())) {
+                        ObjectTree jsonTree = ObjectTree.read()
+                            // we also need to register all type converters
+                            .registerConverter(EntrypointObject.class, ENTRYPOINT_CONVERTER)
+                            .registerConverter(MinecraftVersion.class, value -> MinecraftVersion.fromStringId(value.toString()))
+                            // now we need to register object deserializers
+                            .registerDeserializer(HorizonPluginMetadata.class, PLUGIN_META_FACTORY)
+                            // now we format and read
+                            .format(Format.JSON).from(in);
+
+                        metadata = jsonTree.as(HorizonPluginMetadata.class);
                     }
+                    nestedEntries = classifyJIJ(contents);
+                }
+                index.put(jarFile, serverPlugin, metadata, nestedEntries);
+            }
+
+            if (metadata == null) {
+                // if is spigot or paper plugin, load into backup
+                if (serverPlugin != null) {
+                    serverPlugins.add(new ServerPlugin(jarFile.toURI().toURL(), serverPlugin));
                 }
                 return Optional.empty();
             }
 
-            try (InputStream in = jar.getInputStream(entry.get())) {
-                ObjectTree jsonTree = ObjectTree.read()
-                    // we also need to register all type converters
-                    .registerConverter(EntrypointObject.class, ENTRYPOINT_CONVERTER)
-                    .registerConverter(MinecraftVersion.class, value -> MinecraftVersion.fromStringId(value.toString()))
-                    // now we need to register object deserializers
-                    .registerDeserializer(HorizonPluginMetadata.class, PLUGIN_META_FACTORY)
-                    // now we format and read
-                    .format(Format.JSON).from(in);
-
-                HorizonPluginMetadata metadata = jsonTree.as(HorizonPluginMetadata.class);
-                HorizonPluginMetadata.NestedData nestedData = metadata.nesting();
-                // Note: this loads recursively for nested horizon entries
-                locateAndExtractJIJ(jar, (nested) -> {
-                    switch (nested.type()) {
-                        case PLUGIN -> {
-                            FileJar pluginJar = nested.obj;
-                            // we need to load this to the setup classloader so plugins can inject into
-                            // jij server plugins, and also insert the plugin into storage
-                            pluginJar.jarFile().stream()
-                                .filter(e -> !e.isDirectory())
-                                .filter(e -> e.getName().equalsIgnoreCase("paper-plugin.yml") ||
-                                    e.getName().equalsIgnoreCase("plugin.yml"))
-                                .findFirst().ifPresent((jarEntry) -> {
-                                    try {
-                                        try (InputStream instream = pluginJar.jarFile().getInputStream(jarEntry)) {
-                                            loadServerPlugin(jarEntry, instream, pluginJar);
-                                        }
-                                    } catch (Throwable thrown) {
-                                        throw new RuntimeException("Unable to load nested server plugin", thrown);
-                                    }
-                                });
-                            nestedData.serverPluginEntries().add(nested.obj());
-                            break;
-                        }
-                        case LIBRARY -> {
-                            nestedData.libraryEntries().add(nested.obj());
-                            break;
-                        }
-                        case HORIZON -> {
-                            scanJarFile(nested.obj().ioFile()).ifPresent((candidate) -> {
-                                // the IO file was a horizon jar
-                                // Note: nested entries of child will be processed in the scanJarFile method
-                                nestedData.horizonEntries().add(candidate);
-                            });
-                            break;
+            if (jar == null) {
+                jar = new JarFile(jarFile);
+            }
+            HorizonPluginMetadata.NestedData nestedData = metadata.nesting();
+            // Note: this loads recursively for nested horizon entries
+            locateAndExtractJIJ(jar, nestedEntries, cache, (nested) -> {
+                switch (nested.type()) {
+                    case PLUGIN -> {
+                        FileJar pluginJar = nested.obj;
+                        // we need to load this to the setup classloader so plugins can inject into
+                        // jij server plugins, and also insert the plugin into storage
+                        try {
+                            String name = serverPluginName(pluginJar, index);
+                            if (name != null) {
+                                serverPlugins.add(new ServerPlugin(pluginJar.ioFile().toURI().toURL(), name));
+                            }
+                        } catch (Throwable thrown) {
+                            throw new RuntimeException("Unable to load nested server plugin", thrown);
                         }
+                        nestedData.serverPluginEntries().add(nested.obj());
+                        break;
+                    }
+                    case LIBRARY -> {
+                        nestedData.libraryEntries().add(nested.obj());
+                        break;
+                    }
+                    case HORIZON -> {
+                        scanJarFile(nested.obj().ioFile(), cache, index, serverPlugins).ifPresent((candidate) -> {
+                            // the IO file was a horizon jar
+                            // Note: nested entries of child will be processed in the scanJarFile method
+                            nestedData.horizonEntries().add(candidate);
+                        });
+                        break;
                     }
-                });
+                }
+            });
 
-                return Optional.of(new Pair<>(new FileJar(jarFile, jar), metadata));
-            }
+            return Optional.of(new Pair<>(new FileJar(jarFile, jar), metadata));
         } catch (Exception e) {
             LOGGER.error(e, "Error scanning jar file: {}", jarFile.getName());
             return Optional.empty();
         }
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void locateAndExtractJIJ(@NonNull JarFile jar, Consumer<NestedEntry> processor) {
-        jar.stream()
-            .filter(e -> e.getName().endsWith(Util.JAR_SUFFIX))
-            .forEachOrdered(entry -> {
+    private static @NonNull List<PluginIndex.Nested> classifyJIJ(@NonNull JarContents contents) {
+        List<PluginIndex.Nested> classified = new ArrayList<>(contents.nested().size());
+        for (JarEntry entry : contents.nested()) {
+            final PluginIndex.Nested.Type type;
+            final String n;
 
-                final NestedEntry.Type type;
-                final String n;
+            if (entry.getName().startsWith(JIJ_PATH_HORIZON)) {
+                type = PluginIndex.Nested.Type.HORIZON;
+                n = JIJ_PATH_HORIZON;
+            }
+            else if (entry.getName().startsWith(JIJ_PATH_PAPER)) {
+                type = PluginIndex.Nested.Type.PLUGIN;
+                n = JIJ_PATH_PAPER;
+            }
+            else if (entry.getName().startsWith(JIJ_PATH_LIB)) {
+                type = PluginIndex.Nested.Type.LIBRARY;
+                n = JIJ_PATH_LIB;
+            }
+            else {
+                continue;
+            }
 
-                if (entry.getName().startsWith(JIJ_PATH_HORIZON)) {
-                    type = NestedEntry.Type.HORIZON;
-                    n = JIJ_PATH_HORIZON;
-                }
-                else if (entry.getName().startsWith(JIJ_PATH_PAPER)) {
-                    type = NestedEntry.Type.PLUGIN;
-                    n = JIJ_PATH_PAPER;
-                }
-                else if (entry.getName().startsWith(JIJ_PATH_LIB)) {
-                    type = NestedEntry.Type.LIBRARY;
-                    n = JIJ_PATH_LIB;
-                }
-                else {
-                    return;
-                }
+            String fileName = entry.getName().substring(n.length());
+            classified.add(new PluginIndex.Nested(type, entry.getName(), NestedJarCache.key(contents.fingerprint(), entry), fileName));
+        }
+        return classified;
+    }
 
-                File cacheDir = HorizonLoader.getInstance().getProperties().cacheLocation();
-                String fileName = entry.getName().substring(n.length());
-                File extractedFile = new File(cacheDir, fileName);
+    private void locateAndExtractJIJ(@NonNull JarFile jar, @NonNull List<PluginIndex.Nested> entries, @NonNull NestedJarCache cache, Consumer<NestedEntry> processor) {
+        entries.forEach(nested -> {
+            try {
+                JarEntry entry = jar.getJarEntry(nested.entryName());
+                if (entry == null) {
+                    throw new IOException("Missing nested JAR entry");
+                }
 
-                // Path traversal defense
-                try {
-                    String canonicalCachePath = cacheDir.getCanonicalPath();
-                    String canonicalFilePath = extractedFile.getCanonicalPath();
-                    if (!canonicalFilePath.startsWith(canonicalCachePath + File.separator)) {
-                        LOGGER.error("Path traversal attempt detected: {}", entry.getName());
-                        return;
-                    }
-                } catch (IOException ioexe) {
-                    LOGGER.error(ioexe, "Failed to validate path for: {}", entry.getName());
+                // stored under its content key, so unchanged nested jars are reused between boots
+                File extractedFile = cache.extract(jar, entry, nested.key(), nested.fileName());
+                if (extractedFile == null) {
+                    LOGGER.error("Path traversal attempt detected: {}", entry.getName());
                     return;
                 }
+                FileJar fileJar = new FileJar(extractedFile, new JarFile(extractedFile));
+                processor.accept(new NestedEntry(nested.type(), fileJar));
 
-                try {
-                    extractedFile.getParentFile().mkdirs();
-                    extractedFile.createNewFile();
-
-                    try (InputStream in = jar.getInputStream(entry);
-                         FileOutputStream out = new FileOutputStream(extractedFile)) {
+                LOGGER.debug("Loaded extracted entry {}", extractedFile.getName());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to extract nested JAR: " + nested.entryName(), e);
+            }
+        });
+    }
 
-                        byte[] buffer = new byte[8192];
-                        int read;
-                        while ((read = in.read(buffer)) != -1) {
-                            out.write(buffer, 0, read);
-                        }
-                    }
+    private record NestedEntry(PluginIndex.Nested.Type type, FileJar obj) {
+    }
 
-                    FileJar fileJar = new FileJar(extractedFile, new JarFile(extractedFile));
-                    processor.accept(new NestedEntry(type, fileJar));
+    private record ServerPlugin(URL url, String name) {
+    }
 
-                    LOGGER.debug("Loaded extracted entry {}", extractedFile.getName());
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to extract nested JAR: " + entry.getName(), e);
-                }
-            });
+    private record Scan(Optional<Pair<FileJar, HorizonPluginMetadata>> candidate, List<ServerPlugin> serverPlugins) {
     }
 
-    private record NestedEntry(Type type, FileJar obj) {
+    /**
+     * The entries of a jar relevant to discovery, classified in a single pass over its central directory
+     *
+     * @param horizon
+     *     the horizon plugin json, if present
+     * @param server
+     *     the first paper or spigot plugin yml, if present
+     * @param nested
+     *     the nested jars under one of the jar-in-jar paths, in jar order
+     * @param fingerprint
+     *     the SHA-256 hash of the name, CRC, and size of every entry, identifying the contents of the jar
+     *
+     * @author dueris
+     */
+    private record JarContents(@Nullable JarEntry horizon, @Nullable JarEntry server, List<JarEntry> nested, byte[] fingerprint) {
+
+        static @NonNull JarContents of(final @NonNull JarFile jar) {
+            JarEntry horizon = null;
+            JarEntry server = null;
+            List<JarEntry> nested = new ArrayList<>();
+            MessageDigest digest = TransformCache.newDigest();
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
 
-        public enum Type {
-            HORIZON,
-            PLUGIN,
-            LIBRARY
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update(buffer.clear().putLong(entry.getCrc()).putLong(entry.getSize()).flip());
+                if (horizon == null && name.equalsIgnoreCase("horizon.plugin.json")) {
+                    horizon = entry;
+                }
+                else if (server == null && (name.equalsIgnoreCase("paper-plugin.yml") || name.equalsIgnoreCase("plugin.yml"))) {
+                    server = entry;
+                }
+                else if (name.endsWith(Util.JAR_SUFFIX)
+                    && (name.startsWith(JIJ_PATH_HORIZON) || name.startsWith(JIJ_PATH_PAPER) || name.startsWith(JIJ_PATH_LIB))) {
+                    nested.add(entry);
+                }
+            }
+            return new JarContents(horizon, server, nested, digest.digest());
         }
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package io.canvasmc.horizon.service;
 import io.canvasmc.horizon.HorizonLoader;
 import io.canvasmc.horizon.MixinLaunch;
 import io.canvasmc.horizon.logger.Logger;
+import io.canvasmc.horizon.service.classpath.BufferPool;
+import io.canvasmc.horizon.service.transform.ClassNodeCache;
 import io.canvasmc.horizon.service.transform.TransformPhase;
 import io.canvasmc.horizon.transformer.MixinTransformationImpl;
 import org.jetbrains.annotations.ApiStatus;
@@ -65,6 +67,7 @@ public class BootstrapMixinService implements IMixinService, IClassProvider, ICl
     @ApiStatus.Internal
     public void markOutOfInit() {
         isInit = false;
+        HorizonLoader.getInstance().getLaunchService().getTransformer().getNodeCache().close();
         try {
             SETUP_CLASSLOADER.close();
             // log if we have paper/spigot plugin targets
@@ -263,7 +266,17 @@ public class BootstrapMixinService implements IMixinService, IClassProvider, ICl
             else throw new ClassNotFoundException(canonicalName);
         }
 
-        return mixinTransformer.classNode(canonicalName, internalName, entry.data(), readerFlags);
+        final byte[] bytes = entry.data();
+        BufferPool.release(entry.buffer());
+        final ClassNodeCache nodes = launchService.getTransformer().getNodeCache();
+        final ClassNode cached = nodes.copy(internalName, readerFlags, bytes);
+        if (cached != null) return cached;
+
+        final ClassNode node = mixinTransformer.classNode(canonicalName, internalName, bytes, readerFlags);
+        // mixin reads the members of its targets anyway, so share them with the hierarchy index
+        launchService.getTransformer().getHierarchy().record(node);
+        // keep the node for the transformation of the class, mixin may modify the nodes it's given
+        return nodes.put(internalName, readerFlags, bytes, node) ? ClassNodeCache.copy(node) : node;
     }
 
     @Override
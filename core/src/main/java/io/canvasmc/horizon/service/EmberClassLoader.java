@@ -1,9 +1,15 @@
 package io.canvasmc.horizon.service;
 
 import io.canvasmc.horizon.HorizonLoader;
+import io.canvasmc.horizon.metrics.HorizonMetrics;
+import io.canvasmc.horizon.service.classpath.BufferPool;
+import io.canvasmc.horizon.service.classpath.ClassPathIndex;
+import io.canvasmc.horizon.service.classpath.ClassPathSource;
+import io.canvasmc.horizon.service.transform.ClassHierarchyIndex;
 import io.canvasmc.horizon.service.transform.ClassTransformer;
 import io.canvasmc.horizon.service.transform.TransformPhase;
 import io.canvasmc.horizon.util.DummyClassLoader;
+import io.canvasmc.horizon.util.PrefixFilter;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
@@ -14,14 +20,26 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
@@ -36,9 +54,9 @@ import static java.util.Objects.requireNonNull;
  * @author vectrix
  */
 public final class EmberClassLoader extends ClassLoader {
-    private static final List<String> EXCLUDE_PACKAGES = Arrays.asList(
-        "java.", "javax.", "com.sun.", "org.objectweb.asm."
-    );
+    private static final PrefixFilter EXCLUDE_PACKAGES = PrefixFilter.builder()
+        .exclude("java.", "javax.", "com.sun.", "org.objectweb.asm.")
+        .build();
 
     static {
         ClassLoader.registerAsParallelCapable();
@@ -49,12 +67,23 @@ public final class EmberClassLoader extends ClassLoader {
      */
     public final ClassTransformer transformer;
 
-    private final Object lock = new Object();
+    private final ConcurrentMap<String, Package> packages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Pretransform> pretransformed = new ConcurrentHashMap<>();
+    // keyed by jar url, every class from the same jar shares these
+    private final ConcurrentMap<String, Optional<Manifest>> manifests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CodeSource> sources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ProtectionDomain> domains = new ConcurrentHashMap<>();
+    private final ProtectionDomain defaultDomain = new ProtectionDomain(null, null, this, null);
     private final ClassLoader parent;
     private final DynamicClassLoader dynamic;
+    private final ClassPathIndex index = new ClassPathIndex();
+    // resource names of classes not found on the transformation class path, until it changes
+    private volatile Set<String> missing = ConcurrentHashMap.newKeySet();
+    private volatile boolean unindexed = false;
     private final Function<URLConnection, CodeSource> sourceLocator;
     private Function<URLConnection, Manifest> manifestLocator;
-    private Predicate<String> transformationFilter;
+    private volatile PrefixFilter packageFilter;
+    private volatile @Nullable Predicate<String> transformationFilter;
 
     public EmberClassLoader(@NonNull List<Path> paths) {
         super("ember", new DynamicClassLoader(new URL[0]));
@@ -66,11 +95,11 @@ public final class EmberClassLoader extends ClassLoader {
         paths.forEach(this::tryAddToHorizonSystemLoader);
 
         // after loading all of that, create the transformer services
-        this.transformer = new ClassTransformer();
+        this.transformer = new ClassTransformer(new ClassHierarchyIndex(this::hierarchyData));
 
         this.manifestLocator = connection -> this.locateManifest(connection).orElse(null);
         this.sourceLocator = connection -> this.locateSource(connection).orElse(null);
-        this.transformationFilter = name -> EmberClassLoader.EXCLUDE_PACKAGES.stream().noneMatch(name::startsWith);
+        this.packageFilter = EXCLUDE_PACKAGES;
     }
 
     /**
@@ -104,12 +133,26 @@ public final class EmberClassLoader extends ClassLoader {
     private @NonNull Optional<CodeSource> locateSource(final @NonNull URLConnection connection) {
         if (connection instanceof JarURLConnection) {
             final URL url = ((JarURLConnection) connection).getJarFileURL();
-            return Optional.of(new CodeSource(url, (Certificate[]) null));
+            return Optional.of(this.sources.computeIfAbsent(url.toString(), key -> new CodeSource(url, (Certificate[]) null)));
         }
 
         return Optional.empty();
     }
 
+    private @Nullable Manifest resolveManifest(final @NonNull URLConnection connection) {
+        if (connection instanceof JarURLConnection) {
+            final URL url = ((JarURLConnection) connection).getJarFileURL();
+            return this.manifests.computeIfAbsent(url.toString(), key -> Optional.ofNullable(this.manifestLocator.apply(connection))).orElse(null);
+        }
+
+        return this.manifestLocator.apply(connection);
+    }
+
+    private @NonNull ProtectionDomain protectionDomain(final @Nullable CodeSource source) {
+        if (source == null || source.getLocation() == null) return this.defaultDomain;
+        return this.domains.computeIfAbsent(source.getLocation().toString(), key -> new ProtectionDomain(source, null, this, null));
+    }
+
     /**
      * Adds additional transformation paths.
      *
@@ -121,7 +164,29 @@ public final class EmberClassLoader extends ClassLoader {
             this.dynamic.addURL(path.toUri().toURL());
         } catch (final MalformedURLException exception) {
             LOGGER.error(exception, "Failed to resolve transformation path: {}", path);
+            return;
+        }
+
+        try {
+            this.index.add(path);
+        } catch (final IOException exception) {
+            // still reachable through the url class path, just slower
+            LOGGER.error(exception, "Failed to index transformation path: {}", path);
+            this.unindexed = true;
         }
+
+        // the new path may contain classes that were missing before, lookups still
+        // running against the old path record their misses in the discarded set
+        this.missing = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Gets the index of the transformation class path
+     *
+     * @return the class path index
+     */
+    public @NonNull ClassPathIndex getClassPathIndex() {
+        return this.index;
     }
 
     /**
@@ -133,6 +198,8 @@ public final class EmberClassLoader extends ClassLoader {
     public void addManifestLocator(final @NonNull Function<URLConnection, Optional<Manifest>> manifestLocator) {
         requireNonNull(manifestLocator, "manifestLocator");
         this.manifestLocator = this.alternate(manifestLocator, this::locateManifest);
+        // manifests resolved so far may be different with the new locator
+        this.manifests.clear();
     }
 
     private <I, O> @NonNull Function<I, O> alternate(final @Nullable Function<I, Optional<O>> first, final @Nullable Function<I, Optional<O>> second) {
@@ -150,7 +217,74 @@ public final class EmberClassLoader extends ClassLoader {
      */
     public void addTransformationFilter(final @NonNull Predicate<String> transformationFilter) {
         requireNonNull(transformationFilter, "targetPackageFilter");
-        this.transformationFilter = this.transformationFilter.and(transformationFilter);
+        final Predicate<String> existing = this.transformationFilter;
+        this.transformationFilter = existing == null ? transformationFilter : existing.and(transformationFilter);
+    }
+
+    /**
+     * Add the transformation filter, compiled into the package filter of this classloader.
+     *
+     * @param packageFilter
+     *     a package filter
+     */
+    public void addTransformationFilter(final @NonNull PrefixFilter packageFilter) {
+        requireNonNull(packageFilter, "packageFilter");
+        this.packageFilter = this.packageFilter.toBuilder().merge(packageFilter).build();
+    }
+
+    private boolean transformable(final @NonNull String name) {
+        if (this.packageFilter.excludes(name)) return false;
+
+        final Predicate<String> filter = this.transformationFilter;
+        return filter == null || filter.test(name);
+    }
+
+    /**
+     * Transforms classes ahead of time, so they only have to be defined once the game requests them
+     *
+     * @param names
+     *     the canonical names of the classes to transform
+     * @param executor
+     *     the executor to run the transformations on
+     *
+     * @return a future completing once every class has been transformed
+     */
+    public @NonNull CompletableFuture<Void> pretransform(final @NonNull Collection<String> names, final @NonNull Executor executor) {
+        final List<CompletableFuture<?>> futures = new ArrayList<>(names.size());
+        for (final String name : names) {
+            final Pretransform entry = new Pretransform();
+            if (this.pretransformed.putIfAbsent(name, entry) != null) continue;
+
+            futures.add(CompletableFuture.runAsync(() -> {
+                // the class may have been requested before this worker got to it
+                if (!entry.claim()) return;
+
+                ClassData data = null;
+                try {
+                    if (this.findLoadedClass(name) == null) data = this.transformData(name, TransformPhase.INITIALIZE, entry::abandoned);
+                } catch (final Throwable thrown) {
+                    LOGGER.error(thrown, "Failed to pretransform class: {}", name);
+                }
+                entry.complete(data);
+            }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Discards every pretransformed class that wasn't requested yet, releasing its buffer. Classes requested later
+     * are transformed when they are requested
+     */
+    public void discardPretransformed() {
+        int discarded = 0;
+        for (final String name : List.copyOf(this.pretransformed.keySet())) {
+            final Pretransform entry = this.pretransformed.remove(name);
+            if (entry == null) continue;
+
+            entry.discard();
+            discarded++;
+        }
+        if (discarded > 0) LOGGER.debug("Discarded {} pretransformed classes that were never requested", discarded);
     }
 
     boolean hasClass(final @NonNull String name) {
@@ -160,40 +294,49 @@ public final class EmberClassLoader extends ClassLoader {
 
     @Override
     protected @NonNull Class<?> loadClass(final @NonNull String name, final boolean resolve) throws ClassNotFoundException {
-        synchronized (this.getClassLoadingLock(name)) {
-            final String canonicalName = name.replace('/', '.');
-
-            Class<?> target = this.findLoadedClass(canonicalName);
-            if (target == null) {
-                if (canonicalName.startsWith("java.")) {
-                    LOGGER.trace("Loading parent class: {}", canonicalName);
-                    target = this.parent.loadClass(canonicalName);
-                    LOGGER.trace("Loaded parent class: {}", canonicalName);
-                }
-                else {
-                    LOGGER.trace("Attempting to load class: {}", canonicalName);
-                    target = this.findClass(canonicalName, TransformPhase.INITIALIZE);
-                    if (target == null) {
-                        LOGGER.trace("Unable to locate class: {}", canonicalName);
-
-                        LOGGER.trace("Attempting to load parent class: {}", canonicalName);
-                        try {
-                            target = this.parent.loadClass(canonicalName);
-                            LOGGER.trace("Loaded parent class: {}", canonicalName);
-                        } catch (final ClassNotFoundException exception) {
-                            LOGGER.trace("Unable to locate parent class: {}", canonicalName);
-                            throw exception;
-                        }
-                    }
-                    else {
-                        LOGGER.trace("Loaded transformed class: {}", canonicalName);
-                    }
+        final String canonicalName = name.replace('/', '.');
+
+        // already defined classes don't need the class loading lock
+        Class<?> target = this.findLoadedClass(canonicalName);
+        if (target == null) {
+            if (canonicalName.startsWith("java.")) {
+                // platform classes are never defined here, and the parent does its own locking
+                LOGGER.trace("Loading parent class: {}", canonicalName);
+                target = this.parent.loadClass(canonicalName);
+                LOGGER.trace("Loaded parent class: {}", canonicalName);
+            }
+            else {
+                synchronized (this.getClassLoadingLock(canonicalName)) {
+                    target = this.findLoadedClass(canonicalName);
+                    if (target == null) target = this.loadTransformedClass(canonicalName);
                 }
             }
+        }
 
-            if (resolve) this.resolveClass(target);
-            return target;
+        if (resolve) this.resolveClass(target);
+        return target;
+    }
+
+    private @NonNull Class<?> loadTransformedClass(final @NonNull String canonicalName) throws ClassNotFoundException {
+        LOGGER.trace("Attempting to load class: {}", canonicalName);
+        Class<?> target = this.findClass(canonicalName, TransformPhase.INITIALIZE);
+        if (target == null) {
+            LOGGER.trace("Unable to locate class: {}", canonicalName);
+
+            LOGGER.trace("Attempting to load parent class: {}", canonicalName);
+            try {
+                target = this.parent.loadClass(canonicalName);
+                LOGGER.trace("Loaded parent class: {}", canonicalName);
+            } catch (final ClassNotFoundException exception) {
+                LOGGER.trace("Unable to locate parent class: {}", canonicalName);
+                throw exception;
+            }
         }
+        else {
+            LOGGER.trace("Loaded transformed class: {}", canonicalName);
+        }
+
+        return target;
     }
 
     @Override
@@ -267,13 +410,14 @@ public final class EmberClassLoader extends ClassLoader {
         }
 
         // Grab the class bytes.
-        final ClassData transformed = this.transformData(name, phase);
+        final ClassData transformed = this.pretransformedData(name, phase);
         if (transformed == null) return null;
 
         // Check if the class has already been loaded by the transform.
         final Class<?> existingClass = this.findLoadedClass(name);
         if (existingClass != null) {
             LOGGER.trace("Skipping already defined transformed class: {}", name);
+            BufferPool.release(transformed.buffer());
             return existingClass;
         }
 
@@ -284,78 +428,132 @@ public final class EmberClassLoader extends ClassLoader {
             this.findPackage(packageName, transformed.manifest());
         }
 
-        final byte[] bytes = transformed.data();
-        final ProtectionDomain domain = new ProtectionDomain(transformed.source(), null, this, null);
-        return this.defineClass(name, bytes, 0, bytes.length, domain);
+        final ProtectionDomain domain = this.protectionDomain(transformed.source());
+        try {
+            return this.defineClass(name, transformed.buffer(), domain);
+        } finally {
+            BufferPool.release(transformed.buffer());
+        }
+    }
+
+    private @Nullable ClassData pretransformedData(final @NonNull String name, final @NonNull TransformPhase phase) {
+        if (phase == TransformPhase.INITIALIZE && !this.pretransformed.isEmpty()) {
+            final Pretransform entry = this.pretransformed.remove(name);
+            if (entry != null) {
+                final ClassData data = entry.take(this.transformer);
+                if (data != null) return data;
+            }
+        }
+
+        return this.transformData(name, phase);
     }
 
     @Nullable ClassData transformData(final @NonNull String name, final @NonNull TransformPhase phase) {
+        return this.transformData(name, phase, null);
+    }
+
+    private @Nullable ClassData transformData(final @NonNull String name, final @NonNull TransformPhase phase, final @Nullable BooleanSupplier abandoned) {
         final ClassData data = this.classData(name, phase);
         if (data == null) return null;
 
         // Prevent transforming classes that are excluded from transformation.
-        if (!this.transformationFilter.test(name)) {
+        if (!this.transformable(name)) {
             LOGGER.trace("Skipping transformer excluded class: {}", name);
+            BufferPool.release(data.buffer());
             return null;
         }
 
         // Run the transformation.
-        final byte[] bytes = this.transformer.transformBytes(name, data.data(), phase);
-        return new ClassData(bytes, data.manifest(), data.source());
+        final ByteBuffer buffer = this.transformer.transformBytes(name, data.buffer(), phase, abandoned);
+        if (buffer == data.buffer()) return data;
+
+        BufferPool.release(data.buffer());
+        return new ClassData(buffer, data.manifest(), data.source());
     }
 
     void findPackage(final @NonNull String name, final @Nullable Manifest manifest) {
-        final Package target = this.getDefinedPackage(name);
-        if (target == null) {
-            synchronized (this.lock) {
-                if (this.getDefinedPackage(name) != null) return;
-
-                final String path = name.replace('.', '/').concat("/");
-                String specTitle = null, specVersion = null, specVendor = null;
-                String implTitle = null, implVersion = null, implVendor = null;
-
-                if (manifest != null) {
-                    final Attributes attributes = manifest.getAttributes(path);
-                    if (attributes != null) {
-                        specTitle = attributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
-                        specVersion = attributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
-                        specVendor = attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-                        implTitle = attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-                        implVersion = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-                        implVendor = attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-                    }
-
-                    final Attributes mainAttributes = manifest.getMainAttributes();
-                    if (mainAttributes != null) {
-                        if (specTitle == null) specTitle = mainAttributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
-                        if (specVersion == null)
-                            specVersion = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
-                        if (specVendor == null)
-                            specVendor = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-                        if (implTitle == null)
-                            implTitle = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-                        if (implVersion == null)
-                            implVersion = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-                        if (implVendor == null)
-                            implVendor = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-                    }
-                }
+        if (this.getDefinedPackage(name) != null) return;
+
+        // only the first class of a package defines it, without blocking other packages
+        this.packages.computeIfAbsent(name, key -> this.definePackage(key, manifest));
+    }
+
+    private @NonNull Package definePackage(final @NonNull String name, final @Nullable Manifest manifest) {
+        final String path = name.replace('.', '/').concat("/");
+        String specTitle = null, specVersion = null, specVendor = null;
+        String implTitle = null, implVersion = null, implVendor = null;
+
+        if (manifest != null) {
+            final Attributes attributes = manifest.getAttributes(path);
+            if (attributes != null) {
+                specTitle = attributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
+                specVersion = attributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
+                specVendor = attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+                implTitle = attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+                implVersion = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+                implVendor = attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
+            }
 
-                this.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, null);
+            final Attributes mainAttributes = manifest.getMainAttributes();
+            if (mainAttributes != null) {
+                if (specTitle == null) specTitle = mainAttributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
+                if (specVersion == null)
+                    specVersion = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
+                if (specVendor == null)
+                    specVendor = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+                if (implTitle == null)
+                    implTitle = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+                if (implVersion == null)
+                    implVersion = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+                if (implVendor == null)
+                    implVendor = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
             }
         }
+
+        return this.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, null);
+    }
+
+    private byte @Nullable [] hierarchyData(final @NonNull String internalName) {
+        // the untransformed bytes are enough, super classes are never changed by a transformation
+        final ClassData data = this.classData(internalName.replace('/', '.'), TransformPhase.MIXIN);
+        if (data == null) return null;
+
+        final byte[] bytes = data.data();
+        BufferPool.release(data.buffer());
+        return bytes;
     }
 
     @Nullable ClassData classData(final @NonNull String name, final @NonNull TransformPhase phase) {
         final String resourceName = name.replace('.', '/').concat(".class");
 
-        URL url = this.findResource(resourceName);
-        if (url == null) {
-            if (phase == TransformPhase.INITIALIZE) return null;
-            url = this.parent.getResource(resourceName);
-            if (url == null) return null;
+        // optional dependencies are probed over and over, known misses go straight to the parent
+        final Set<String> missing = this.missing;
+        if (!missing.contains(resourceName)) {
+            final long start = System.nanoTime();
+            final ClassPathSource source = this.index.find(resourceName);
+            if (source != null) {
+                try {
+                    final ByteBuffer buffer = source.readBuffer(resourceName);
+                    HorizonMetrics.get().lookup(source.path()).record(System.nanoTime() - start);
+                    if (buffer != null) return new ClassData(buffer, source.manifest(), source.codeSource());
+                } catch (final IOException exception) {
+                    LOGGER.trace(exception, "Failed to resolve class data: {}", resourceName);
+                    return null;
+                }
+            }
+            else {
+                HorizonMetrics.get().misses().record(System.nanoTime() - start);
+            }
+
+            final URL url = this.unindexed ? this.findResource(resourceName) : null;
+            if (url != null) return getClassData(url, resourceName);
+            if (source == null) missing.add(resourceName);
         }
 
+        if (phase == TransformPhase.INITIALIZE) return null;
+        final URL url = this.parent.getResource(resourceName);
+        if (url == null) return null;
+
         return getClassData(url, resourceName);
     }
 
@@ -371,7 +569,7 @@ public final class EmberClassLoader extends ClassLoader {
      * @return the fetched class data, {@code null} if not found
      */
     public @Nullable ClassData getClassData(final URL url, final String resourceName) {
-        try (final ResourceConnection connection = new ResourceConnection(url, this.manifestLocator, this.sourceLocator)) {
+        try (final ResourceConnection connection = new ResourceConnection(url, this::resolveManifest, this.sourceLocator)) {
             final int length = connection.contentLength();
             final InputStream stream = connection.stream();
             final byte[] bytes = new byte[length];
@@ -410,8 +608,8 @@ public final class EmberClassLoader extends ClassLoader {
     /**
      * Represents the data for a class.
      *
-     * @param data
-     *     The class data as a byte array.
+     * @param buffer
+     *     The class data as a buffer, which may be a slice of a mapped jar or a pooled buffer.
      * @param manifest
      *     The jar manifest
      * @param source
@@ -419,7 +617,94 @@ public final class EmberClassLoader extends ClassLoader {
      *
      * @author dueris
      */
-    public record ClassData(byte[] data, Manifest manifest, CodeSource source) {}
+    public record ClassData(ByteBuffer buffer, Manifest manifest, CodeSource source) {
+
+        public ClassData(final byte @NonNull [] data, final Manifest manifest, final CodeSource source) {
+            this(ByteBuffer.wrap(data), manifest, source);
+        }
+
+        /**
+         * Gets the class data as a byte array, copying it out of the buffer unless the buffer wraps exactly one array that
+         * isn't pooled
+         *
+         * @return the class bytes
+         */
+        public byte @NonNull [] data() {
+            if (this.buffer.hasArray() && this.buffer.arrayOffset() == 0 && this.buffer.position() == 0
+                && this.buffer.remaining() == this.buffer.array().length && !BufferPool.isPooled(this.buffer)) {
+                return this.buffer.array();
+            }
+
+            final byte[] bytes = new byte[this.buffer.remaining()];
+            this.buffer.duplicate().get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * A class transformed ahead of time. Whichever of the worker and the class loader claims it first transforms it,
+     * so every class is transformed exactly once
+     */
+    private static final class Pretransform {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int ABANDONED = 3;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<@Nullable ClassData> result = new CompletableFuture<>();
+        private volatile @Nullable Thread worker;
+
+        boolean claim() {
+            this.worker = Thread.currentThread();
+            return this.state.compareAndSet(PENDING, RUNNING);
+        }
+
+        boolean abandoned() {
+            return this.state.get() == ABANDONED;
+        }
+
+        void complete(final @Nullable ClassData data) {
+            if (this.state.compareAndSet(RUNNING, DONE)) this.result.complete(data);
+            else if (data != null) BufferPool.release(data.buffer());
+        }
+
+        /**
+         * Takes the result of the worker, waiting for it if it's running
+         *
+         * @return the transformed class, or {@code null} if the caller has to transform it itself
+         */
+        @Nullable ClassData take(final @NonNull ClassTransformer transformer) {
+            if (this.state.compareAndSet(PENDING, ABANDONED)) return null;
+            if (!transformer.isTransforming()) return this.result.join();
+
+            // a class requested from within a transformation can only wait on the worker while the worker isn't
+            // waiting on a transformation service this thread is holding. otherwise the worker is abandoned, and
+            // stops before running that service, as this thread transforms the class instead
+            while (true) {
+                try {
+                    return this.result.get(1, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException ignored) {
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return this.state.compareAndSet(RUNNING, ABANDONED) ? null : this.result.join();
+                } catch (final ExecutionException exception) {
+                    // the result is never completed exceptionally
+                    return null;
+                }
+
+                final Thread worker = this.worker;
+                if (worker != null && transformer.blocks(worker) && this.state.compareAndSet(RUNNING, ABANDONED)) return null;
+            }
+        }
+
+        void discard() {
+            if (this.state.compareAndSet(PENDING, ABANDONED) || this.state.compareAndSet(RUNNING, ABANDONED)) return;
+
+            final ClassData data = this.result.join();
+            if (data != null) BufferPool.release(data.buffer());
+        }
+    }
 
     private static final class ResourceConnection implements AutoCloseable {
 
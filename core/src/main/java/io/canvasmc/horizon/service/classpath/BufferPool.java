@@ -0,0 +1,85 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded pool of heap buffers that inflated class bytes are read into. Buffers are bucketed by power of two sizes,
+ * and anything larger than the biggest bucket is allocated without pooling
+ *
+ * @author dueris
+ */
+public final class BufferPool {
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 20;
+    private static final int BUCKET_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ArrayBlockingQueue<byte[]>[] BUCKETS = new ArrayBlockingQueue[MAX_SHIFT - MIN_SHIFT + 1];
+    // arrays have identity equality, so this only ever matches arrays handed out by the pool
+    private static final Set<byte[]> LEASED = ConcurrentHashMap.newKeySet();
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKETS[i] = new ArrayBlockingQueue<>(BUCKET_CAPACITY);
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    /**
+     * Acquires a buffer with exactly {@code size} bytes remaining, backed by an array that may be larger
+     *
+     * @param size
+     *     the required size
+     *
+     * @return the buffer
+     */
+    public static @NonNull ByteBuffer acquire(final int size) {
+        final int bucket = bucket(size);
+        if (bucket < 0) return ByteBuffer.allocate(size);
+
+        byte[] array = BUCKETS[bucket].poll();
+        if (array == null) array = new byte[1 << (bucket + MIN_SHIFT)];
+        LEASED.add(array);
+        return ByteBuffer.wrap(array, 0, size);
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers the pool didn't hand out are ignored, so this is safe to call on any buffer
+     * once it is no longer used
+     *
+     * @param buffer
+     *     the buffer to release
+     */
+    public static void release(final @NonNull ByteBuffer buffer) {
+        if (!buffer.hasArray()) return;
+
+        final byte[] array = buffer.array();
+        if (LEASED.remove(array)) {
+            BUCKETS[bucket(array.length)].offer(array);
+        }
+    }
+
+    /**
+     * Checks if the buffer is backed by an array currently leased from the pool
+     *
+     * @param buffer
+     *     the buffer to check
+     *
+     * @return {@code true} if the buffer must be released, and its array never kept
+     */
+    public static boolean isPooled(final @NonNull ByteBuffer buffer) {
+        return buffer.hasArray() && LEASED.contains(buffer.array());
+    }
+
+    private static int bucket(final int size) {
+        final int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size - 1, 1)));
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+}
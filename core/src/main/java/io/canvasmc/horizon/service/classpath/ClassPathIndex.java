@@ -0,0 +1,163 @@
+package io.canvasmc.horizon.service.classpath;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * An index of the transformation class path by package. Each package maps to the sources containing it, in the order
+ * the sources were added, so a lookup only ever checks the few sources that can contain the class instead of every
+ * source on the class path.
+ * <p>
+ * All indexed class names are also recorded in a Bloom filter, so names which are known to be absent from the class
+ * path are rejected without checking any source
+ *
+ * @author dueris
+ */
+public final class ClassPathIndex {
+    private static final ClassPathSource[] EMPTY = new ClassPathSource[0];
+    private static final int INITIAL_CAPACITY = 1 << 14;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final List<ClassPathSource> sources = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, ClassPathSource[]> packages = new ConcurrentHashMap<>();
+    private volatile BloomFilter<CharSequence> classes = newFilter(INITIAL_CAPACITY);
+    private int capacity = INITIAL_CAPACITY;
+    private int count = 0;
+
+    /**
+     * Gets the internal package name of a resource, the root package being the empty string
+     *
+     * @param resourceName
+     *     the resource name
+     *
+     * @return the internal package name
+     */
+    public static @NonNull String packageOf(final @NonNull String resourceName) {
+        final int index = resourceName.lastIndexOf('/');
+        return index < 0 ? "" : resourceName.substring(0, index);
+    }
+
+    /**
+     * Opens and indexes a jar or directory, appending it to the end of the class path. Missing paths are ignored
+     *
+     * @param path
+     *     the path to add
+     *
+     * @throws IOException
+     *     if the path couldn't be opened or scanned
+     */
+    public synchronized void add(final @NonNull Path path) throws IOException {
+        // the url class path silently ignores missing entries too
+        if (Files.notExists(path)) return;
+
+        for (final ClassPathSource source : this.sources) {
+            if (source.path().equals(path)) return;
+        }
+
+        final ClassPathSource source = open(path);
+        final Collection<String> classes = source.classes();
+        final Set<String> packages = new HashSet<>();
+        for (final String name : classes) {
+            packages.add(packageOf(name));
+        }
+
+        // the filter must know every class before its package can be found
+        this.count += classes.size();
+        if (this.count > this.capacity) {
+            // grown past the capacity, rebuild with room for at least as many classes again
+            this.capacity = Math.max(this.capacity << 1, this.count << 1);
+            final BloomFilter<CharSequence> filter = newFilter(this.capacity);
+            for (final ClassPathSource existing : this.sources) {
+                existing.classes().forEach(filter::put);
+            }
+            classes.forEach(filter::put);
+            this.classes = filter;
+        }
+        else {
+            classes.forEach(this.classes::put);
+        }
+
+        for (final String name : packages) {
+            this.packages.merge(name, new ClassPathSource[]{source}, (existing, added) -> {
+                final ClassPathSource[] merged = Arrays.copyOf(existing, existing.length + 1);
+                merged[existing.length] = source;
+                return merged;
+            });
+        }
+
+        this.sources.add(source);
+        LOGGER.trace("Indexed class path source: {}", path);
+    }
+
+    private static @NonNull ClassPathSource open(final @NonNull Path path) throws IOException {
+        if (Files.isDirectory(path)) return new DirectorySource(path);
+
+        final ClassPathSource nested = NestedJarSource.open(path);
+        if (nested != null) return nested;
+
+        final ClassPathSource mapped = MappedJarSource.open(path);
+        if (mapped != null) return mapped;
+
+        LOGGER.debug("Falling back to unmapped reads for {}", path);
+        return new JarFileSource(path);
+    }
+
+    private static @NonNull BloomFilter<CharSequence> newFilter(final int capacity) {
+        return BloomFilter.create(Funnels.unencodedCharsFunnel(), capacity, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Checks if the class may be on the indexed class path. Classes are never falsely reported as absent, but may be
+     * falsely reported as present
+     *
+     * @param resourceName
+     *     the resource name of the class
+     *
+     * @return {@code false} if no indexed source contains the class
+     */
+    public boolean mightContain(final @NonNull String resourceName) {
+        return this.classes.mightContain(resourceName);
+    }
+
+    /**
+     * Finds the first source containing the resource
+     *
+     * @param resourceName
+     *     the resource name
+     *
+     * @return the source, or {@code null} if no indexed source contains the resource
+     */
+    public @Nullable ClassPathSource find(final @NonNull String resourceName) {
+        if (resourceName.endsWith(".class") && !this.mightContain(resourceName)) return null;
+        for (final ClassPathSource source : this.packages.getOrDefault(packageOf(resourceName), EMPTY)) {
+            if (source.contains(resourceName)) return source;
+        }
+        return null;
+    }
+
+    /**
+     * Gets all indexed sources, in class path order
+     *
+     * @return the sources
+     */
+    public @NonNull List<ClassPathSource> sources() {
+        return Collections.unmodifiableList(this.sources);
+    }
+}
@@ -0,0 +1,93 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.jar.Manifest;
+
+/**
+ * A single entry of the {@link ClassPathIndex}, being a jar or a directory, which class bytes can be read from
+ * directly without going through a {@link java.net.URLConnection}
+ *
+ * @author dueris
+ */
+public interface ClassPathSource extends Closeable {
+
+    /**
+     * Gets the path of this source
+     *
+     * @return the path
+     */
+    @NonNull Path path();
+
+    /**
+     * Gets the resource names of all classes in this source
+     *
+     * @return the classes of this source
+     *
+     * @throws IOException
+     *     if the source couldn't be scanned
+     */
+    @NonNull Collection<String> classes() throws IOException;
+
+    /**
+     * Checks if this source contains the resource
+     *
+     * @param resourceName
+     *     the resource name, like {@code io/canvasmc/horizon/HorizonLoader.class}
+     *
+     * @return {@code true} if the resource exists in this source
+     */
+    boolean contains(final @NonNull String resourceName);
+
+    /**
+     * Reads the bytes of the resource
+     *
+     * @param resourceName
+     *     the resource name
+     *
+     * @return the resource bytes, or {@code null} if the resource doesn't exist in this source
+     *
+     * @throws IOException
+     *     if the resource couldn't be read
+     */
+    byte @Nullable [] read(final @NonNull String resourceName) throws IOException;
+
+    /**
+     * Reads the bytes of the resource into a buffer, without copying them where the source allows it. The buffer may
+     * come from the {@link BufferPool}, and should be {@link BufferPool#release(ByteBuffer) released} once no longer
+     * used
+     *
+     * @param resourceName
+     *     the resource name
+     *
+     * @return the resource buffer, or {@code null} if the resource doesn't exist in this source
+     *
+     * @throws IOException
+     *     if the resource couldn't be read
+     */
+    default @Nullable ByteBuffer readBuffer(final @NonNull String resourceName) throws IOException {
+        final byte[] bytes = this.read(resourceName);
+        return bytes == null ? null : ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Gets the manifest of this source
+     *
+     * @return the manifest, or {@code null} if the source has none
+     */
+    @Nullable Manifest manifest();
+
+    /**
+     * Gets the code source classes from this source are defined with
+     *
+     * @return the code source, or {@code null} if classes have none
+     */
+    @Nullable CodeSource codeSource();
+}
@@ -0,0 +1,75 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * A class path source backed by a directory of class files, like the output of a development build
+ *
+ * @author dueris
+ */
+public final class DirectorySource implements ClassPathSource {
+    private final Path root;
+
+    /**
+     * Constructs a new directory source
+     *
+     * @param root
+     *     the root directory of the class files
+     */
+    public DirectorySource(final @NonNull Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public @NonNull Path path() {
+        return this.root;
+    }
+
+    @Override
+    public @NonNull Collection<String> classes() throws IOException {
+        try (final Stream<Path> files = Files.walk(this.root)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".class"))
+                .map(file -> this.root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"))
+                .toList();
+        }
+    }
+
+    @Override
+    public boolean contains(final @NonNull String resourceName) {
+        return Files.isRegularFile(this.root.resolve(resourceName));
+    }
+
+    @Override
+    public byte @Nullable [] read(final @NonNull String resourceName) throws IOException {
+        try {
+            return Files.readAllBytes(this.root.resolve(resourceName));
+        } catch (final NoSuchFileException ignored) {
+            return null;
+        }
+    }
+
+    @Override
+    public @Nullable Manifest manifest() {
+        // matches URLClassLoader, which only provides manifests for jars
+        return null;
+    }
+
+    @Override
+    public @Nullable CodeSource codeSource() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,87 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.Collection;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipFile;
+
+/**
+ * A class path source backed by a jar, which is kept open for the lifetime of the source. Multi-release jars resolve
+ * entries for the runtime version, matching {@link java.net.URLClassLoader}
+ *
+ * @author dueris
+ */
+public final class JarFileSource implements ClassPathSource {
+    private final Path path;
+    private final JarFile jar;
+    private final @Nullable Manifest manifest;
+    private final CodeSource codeSource;
+
+    /**
+     * Opens a new jar source
+     *
+     * @param path
+     *     the path of the jar
+     *
+     * @throws IOException
+     *     if the jar couldn't be opened
+     */
+    public JarFileSource(final @NonNull Path path) throws IOException {
+        this.path = path;
+        this.jar = new JarFile(path.toFile(), false, ZipFile.OPEN_READ, JarFile.runtimeVersion());
+        this.manifest = this.jar.getManifest();
+        this.codeSource = new CodeSource(path.toUri().toURL(), (Certificate[]) null);
+    }
+
+    @Override
+    public @NonNull Path path() {
+        return this.path;
+    }
+
+    @Override
+    public @NonNull Collection<String> classes() {
+        return this.jar.versionedStream()
+            .map(JarEntry::getName)
+            .filter(name -> name.endsWith(".class"))
+            .toList();
+    }
+
+    @Override
+    public boolean contains(final @NonNull String resourceName) {
+        return this.jar.getJarEntry(resourceName) != null;
+    }
+
+    @Override
+    public byte @Nullable [] read(final @NonNull String resourceName) throws IOException {
+        final JarEntry entry = this.jar.getJarEntry(resourceName);
+        if (entry == null) return null;
+
+        try (final InputStream stream = this.jar.getInputStream(entry)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Override
+    public @Nullable Manifest manifest() {
+        return this.manifest;
+    }
+
+    @Override
+    public @NonNull CodeSource codeSource() {
+        return this.codeSource;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.jar.close();
+    }
+}
@@ -0,0 +1,268 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A class path source which memory maps a jar and parses its central directory once. Stored entries are returned as
+ * slices of the mapping without copying, and deflated entries are inflated into {@link BufferPool pooled buffers}.
+ * <p>
+ * Jars this reader doesn't support, being multi-release jars, zip64 jars, and jars too large to be mapped at once,
+ * are rejected by {@link #open(Path)} so a {@link JarFileSource} can be used instead
+ *
+ * @author dueris
+ */
+public final class MappedJarSource implements ClassPathSource {
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int END_LENGTH = 22;
+    private static final int CENTRAL_LENGTH = 46;
+    private static final int LOCAL_LENGTH = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final Path path;
+    private final ByteBuffer mapping;
+    private final Map<String, Entry> entries;
+    private final @Nullable Manifest manifest;
+    private final CodeSource codeSource;
+
+    private MappedJarSource(final @NonNull Path path, final @NonNull ByteBuffer mapping, final @NonNull Map<String, Entry> entries) throws IOException {
+        this.path = path;
+        this.mapping = mapping;
+        this.entries = entries;
+        this.manifest = this.readManifest();
+        this.codeSource = new CodeSource(path.toUri().toURL(), (Certificate[]) null);
+    }
+
+    /**
+     * Opens a mapped jar source, if the jar is supported by this reader
+     *
+     * @param path
+     *     the path of the jar
+     *
+     * @return the source, or {@code null} if the jar must be read by a {@link JarFileSource}
+     *
+     * @throws IOException
+     *     if the jar couldn't be read
+     */
+    public static @Nullable MappedJarSource open(final @NonNull Path path) throws IOException {
+        final MappedByteBuffer mapping;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) return null;
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return open(path, mapping);
+    }
+
+    /**
+     * Opens a source over the bytes of a jar already in memory, if the jar is supported by this reader
+     *
+     * @param path
+     *     the path classes of the jar are defined with
+     * @param data
+     *     the bytes of the jar
+     *
+     * @return the source, or {@code null} if the jar must be read by a {@link JarFileSource}
+     *
+     * @throws IOException
+     *     if the jar couldn't be read
+     */
+    static @Nullable MappedJarSource open(final @NonNull Path path, final @NonNull ByteBuffer data) throws IOException {
+        final ByteBuffer mapping = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        final Map<String, Entry> entries = readCentralDirectory(mapping);
+        if (entries == null) return null;
+
+        final MappedJarSource source = new MappedJarSource(path, mapping, entries);
+        // versioned entries would have to be resolved against the runtime version
+        if (source.manifest != null && Boolean.parseBoolean(source.manifest.getMainAttributes().getValue(Attributes.Name.MULTI_RELEASE))) {
+            return null;
+        }
+        return source;
+    }
+
+    private static @Nullable Map<String, Entry> readCentralDirectory(final @NonNull ByteBuffer mapping) throws ZipException {
+        // the end record is followed by a comment of up to 65535 bytes
+        int end = -1;
+        for (int position = mapping.limit() - END_LENGTH; position >= Math.max(0, mapping.limit() - END_LENGTH - 0xFFFF); position--) {
+            if (mapping.getInt(position) == END_SIGNATURE) {
+                end = position;
+                break;
+            }
+        }
+        if (end < 0) throw new ZipException("Missing end of central directory record");
+
+        final int count = Short.toUnsignedInt(mapping.getShort(end + 10));
+        final long size = Integer.toUnsignedLong(mapping.getInt(end + 12));
+        final long offset = Integer.toUnsignedLong(mapping.getInt(end + 16));
+        // zip64 markers, the real values are in the zip64 end record
+        if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) return null;
+
+        final Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+        int position = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (mapping.getInt(position) != CENTRAL_SIGNATURE) throw new ZipException("Invalid central directory entry");
+
+            final int method = Short.toUnsignedInt(mapping.getShort(position + 10));
+            final long compressedSize = Integer.toUnsignedLong(mapping.getInt(position + 20));
+            final long uncompressedSize = Integer.toUnsignedLong(mapping.getInt(position + 24));
+            final int nameLength = Short.toUnsignedInt(mapping.getShort(position + 28));
+            final int extraLength = Short.toUnsignedInt(mapping.getShort(position + 30));
+            final int commentLength = Short.toUnsignedInt(mapping.getShort(position + 32));
+            final long localOffset = Integer.toUnsignedLong(mapping.getInt(position + 42));
+            if (compressedSize == 0xFFFFFFFFL || uncompressedSize == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) return null;
+
+            final byte[] name = new byte[nameLength];
+            mapping.get(position + CENTRAL_LENGTH, name);
+            entries.putIfAbsent(new String(name, StandardCharsets.UTF_8), new Entry(method, (int) compressedSize, (int) uncompressedSize, (int) localOffset));
+
+            position += CENTRAL_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    @Override
+    public @NonNull Path path() {
+        return this.path;
+    }
+
+    @Override
+    public @NonNull Collection<String> classes() {
+        final List<String> classes = new ArrayList<>();
+        for (final String name : this.entries.keySet()) {
+            if (name.endsWith(".class")) classes.add(name);
+        }
+        return classes;
+    }
+
+    @Override
+    public boolean contains(final @NonNull String resourceName) {
+        return this.entries.containsKey(resourceName);
+    }
+
+    @Override
+    public byte @Nullable [] read(final @NonNull String resourceName) throws IOException {
+        final ByteBuffer buffer = this.readBuffer(resourceName);
+        if (buffer == null) return null;
+
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        BufferPool.release(buffer);
+        return bytes;
+    }
+
+    @Override
+    public @Nullable ByteBuffer readBuffer(final @NonNull String resourceName) throws IOException {
+        final Entry entry = this.entries.get(resourceName);
+        if (entry == null) return null;
+
+        final int local = entry.localOffset();
+        if (this.mapping.getInt(local) != LOCAL_SIGNATURE) throw new ZipException("Invalid local header for " + resourceName);
+        final int data = local + LOCAL_LENGTH
+            + Short.toUnsignedInt(this.mapping.getShort(local + 26))
+            + Short.toUnsignedInt(this.mapping.getShort(local + 28));
+        final ByteBuffer compressed = this.mapping.slice(data, entry.compressedSize());
+
+        return switch (entry.method()) {
+            case STORED -> compressed;
+            case DEFLATED -> inflate(compressed, entry.size(), resourceName);
+            default -> throw new ZipException("Unsupported compression method " + entry.method() + " for " + resourceName);
+        };
+    }
+
+    /**
+     * Reads a jar nested in this jar, being a slice of the mapping if the entry is stored, or a heap buffer inflated
+     * once if the entry is deflated
+     *
+     * @param entryName
+     *     the entry name of the nested jar
+     *
+     * @return the bytes of the nested jar, or {@code null} if the entry doesn't exist
+     *
+     * @throws IOException
+     *     if the entry couldn't be read
+     */
+    @Nullable ByteBuffer readNested(final @NonNull String entryName) throws IOException {
+        final Entry entry = this.entries.get(entryName);
+        if (entry == null) return null;
+        if (entry.method() == STORED) return this.readBuffer(entryName);
+
+        // not pooled, as the buffer backs the nested source for as long as it is on the class path
+        final ByteBuffer pooled = this.readBuffer(entryName);
+        final ByteBuffer copy = ByteBuffer.allocate(pooled.remaining()).put(pooled).flip();
+        BufferPool.release(pooled);
+        return copy;
+    }
+
+    private static @NonNull ByteBuffer inflate(final @NonNull ByteBuffer compressed, final int size, final @NonNull String resourceName) throws ZipException {
+        final ByteBuffer output = BufferPool.acquire(size);
+        final Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(compressed);
+            int read = inflater.inflate(output.array(), output.arrayOffset(), size);
+            if (read < size && inflater.needsInput()) {
+                // like ZipFile, finish raw streams with a dummy byte
+                inflater.setInput(new byte[1]);
+                read += inflater.inflate(output.array(), output.arrayOffset() + read, size - read);
+            }
+            if (read != size) throw new ZipException("Inflated " + read + " of " + size + " bytes for " + resourceName);
+            return output;
+        } catch (final DataFormatException exception) {
+            BufferPool.release(output);
+            throw new ZipException("Invalid deflated data for " + resourceName + ": " + exception.getMessage());
+        } catch (final ZipException exception) {
+            BufferPool.release(output);
+            throw exception;
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    private @Nullable Manifest readManifest() throws IOException {
+        final byte[] bytes = this.read(JarFile.MANIFEST_NAME);
+        return bytes == null ? null : new Manifest(new ByteArrayInputStream(bytes));
+    }
+
+    @Override
+    public @Nullable Manifest manifest() {
+        return this.manifest;
+    }
+
+    @Override
+    public @NonNull CodeSource codeSource() {
+        return this.codeSource;
+    }
+
+    @Override
+    public void close() {
+        // the mapping is released once it is unreachable
+    }
+
+    private record Entry(int method, int compressedSize, int size, int localOffset) {}
+}
@@ -0,0 +1,96 @@
+package io.canvasmc.horizon.service.classpath;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * Opens jars nested in other jars directly from the outer jar. Stored nested jars are read as slices of the memory
+ * mapped outer jar, and deflated nested jars are inflated once into memory, so classes are never read from the
+ * extracted copy.
+ * <p>
+ * Nested jars are still extracted, as the system class loader and Paper can only load jars from disk, so each
+ * extracted copy is {@link #register(Path, Path, String, boolean, long) registered} with the jar it was extracted from, and
+ * {@link ClassPathIndex} opens the registered copies through this instead. Each outer jar is only mapped and parsed
+ * once, however many jars are nested in it
+ *
+ * @author dueris
+ */
+public final class NestedJarSource {
+    /**
+     * The largest deflated nested jar inflated into memory, larger ones are read from their extracted copy
+     */
+    private static final long MAX_INFLATED_SIZE = 16L * 1024 * 1024;
+
+    private static final Map<Path, Origin> ORIGINS = new ConcurrentHashMap<>();
+    private static final Map<Path, Optional<MappedJarSource>> OUTERS = new ConcurrentHashMap<>();
+
+    private NestedJarSource() {
+    }
+
+    /**
+     * Registers an extracted nested jar with the jar it was extracted from
+     *
+     * @param extracted
+     *     the path of the extracted copy
+     * @param outer
+     *     the path of the outer jar
+     * @param entryName
+     *     the entry name of the nested jar in the outer jar
+     * @param stored
+     *     whether the nested jar is stored uncompressed in the outer jar
+     * @param size
+     *     the uncompressed size of the nested jar
+     */
+    public static void register(final @NonNull Path extracted, final @NonNull Path outer, final @NonNull String entryName, final boolean stored, final long size) {
+        if (!stored && size > MAX_INFLATED_SIZE) return;
+        ORIGINS.put(extracted.toAbsolutePath().normalize(), new Origin(outer.toAbsolutePath().normalize(), entryName));
+    }
+
+    /**
+     * Opens a registered nested jar from the jar it was extracted from
+     *
+     * @param path
+     *     the path of the extracted copy
+     *
+     * @return the source, or {@code null} if the jar isn't registered, or must be read from its extracted copy
+     *
+     * @throws IOException
+     *     if the outer jar couldn't be read
+     */
+    static @Nullable MappedJarSource open(final @NonNull Path path) throws IOException {
+        final Origin origin = ORIGINS.get(path.toAbsolutePath().normalize());
+        if (origin == null) return null;
+
+        final MappedJarSource outer = outer(origin.outer());
+        if (outer == null) return null;
+
+        final ByteBuffer data = outer.readNested(origin.entryName());
+        if (data == null) return null;
+
+        final MappedJarSource source = MappedJarSource.open(path, data);
+        if (source != null) LOGGER.debug("Reading nested jar {} from {}", path.getFileName(), origin.outer().getFileName());
+        return source;
+    }
+
+    private static @Nullable MappedJarSource outer(final @NonNull Path path) throws IOException {
+        final Optional<MappedJarSource> cached = OUTERS.get(path);
+        if (cached != null) return cached.orElse(null);
+
+        // outer jars may be nested themselves
+        MappedJarSource outer = open(path);
+        if (outer == null) outer = MappedJarSource.open(path);
+        final Optional<MappedJarSource> previous = OUTERS.putIfAbsent(path, Optional.ofNullable(outer));
+        return previous != null ? previous.orElse(null) : outer;
+    }
+
+    private record Origin(Path outer, String entryName) {}
+}
@@ -0,0 +1,252 @@
+package io.canvasmc.horizon.service.transform;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A concurrent index of class headers and member signatures, shared by frame computation, access transformer
+ * validation, and the mixin service, so hierarchy and member questions are answered without loading or re-parsing
+ * classes.
+ * <p>
+ * Entries are recorded from class bytes and class nodes the transformer and mixin service already read, and otherwise
+ * resolved lazily from the raw class bytes provided by the lookup function. Headers recorded from a reader don't carry
+ * member signatures; those are read on demand, skipping all code, the first time they're needed
+ *
+ * @author dueris
+ */
+public final class ClassHierarchyIndex {
+    private static final String OBJECT = "java/lang/Object";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Function<String, byte @Nullable []> lookup;
+
+    /**
+     * Constructs a new hierarchy index
+     *
+     * @param lookup
+     *     the function providing the raw class bytes for an internal class name, or {@code null} if not found
+     */
+    public ClassHierarchyIndex(final @NonNull Function<String, byte @Nullable []> lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Records the header of a class being read
+     *
+     * @param reader
+     *     the class reader
+     */
+    public void record(final @NonNull ClassReader reader) {
+        this.entries.putIfAbsent(reader.getClassName(), new Entry(reader.getAccess(), reader.getSuperName(), reader.getInterfaces(), null));
+    }
+
+    /**
+     * Records the header and member signatures of a class node, replacing an entry without member signatures
+     *
+     * @param node
+     *     the class node
+     *
+     * @return the recorded entry
+     */
+    public @NonNull Entry record(final @NonNull ClassNode node) {
+        final Entry entry = this.entries.get(node.name);
+        if (entry != null && entry.members() != null) return entry;
+
+        final Entry recorded = new Entry(node.access, node.superName, node.interfaces.toArray(new String[0]), Members.of(node));
+        return this.entries.merge(node.name, recorded, (existing, replacement) -> existing.members() != null ? existing : replacement);
+    }
+
+    /**
+     * Gets the header of a class, resolving it from its raw bytes if it wasn't recorded yet
+     *
+     * @param internalName
+     *     the internal class name
+     *
+     * @return the class header, or {@code null} if the class couldn't be located
+     */
+    public @Nullable Entry get(final @NonNull String internalName) {
+        final Entry entry = this.entries.get(internalName);
+        if (entry != null) return entry;
+
+        // resolve outside the map, the lookup may record other classes while reading
+        final byte[] bytes = this.lookup.apply(internalName);
+        if (bytes == null || bytes.length == 0) return null;
+
+        final ClassReader reader = new ClassReader(bytes);
+        final Entry resolved = new Entry(reader.getAccess(), reader.getSuperName(), reader.getInterfaces(), null);
+        final Entry existing = this.entries.putIfAbsent(internalName, resolved);
+        return existing != null ? existing : resolved;
+    }
+
+    /**
+     * Gets the member signatures of a class, reading them from its raw bytes if they weren't recorded yet
+     *
+     * @param internalName
+     *     the internal class name
+     *
+     * @return the member signatures, or {@code null} if the class couldn't be located
+     */
+    public @Nullable Members members(final @NonNull String internalName) {
+        final Entry entry = this.entries.get(internalName);
+        if (entry != null && entry.members() != null) return entry.members();
+
+        final byte[] bytes = this.lookup.apply(internalName);
+        if (bytes == null || bytes.length == 0) return null;
+
+        // only the declarations are needed, method bodies are skipped entirely
+        final ClassNode node = new ClassNode(Opcodes.ASM9);
+        new ClassReader(bytes).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return this.record(node).members();
+    }
+
+    /**
+     * Computes the common super class of two classes, following the semantics of
+     * {@link org.objectweb.asm.ClassWriter#getCommonSuperClass(String, String)}
+     *
+     * @param type1
+     *     the internal name of the first class
+     * @param type2
+     *     the internal name of the second class
+     *
+     * @return the internal name of the common super class, or {@code null} if part of the hierarchy is unknown
+     */
+    public @Nullable String commonSuperClass(final @NonNull String type1, final @NonNull String type2) {
+        if (type1.equals(type2)) return type1;
+
+        final Entry first = this.get(type1);
+        final Entry second = this.get(type2);
+        if (first == null || second == null) return null;
+        if (first.isInterface() || second.isInterface()) return OBJECT;
+
+        final Set<String> chain = new HashSet<>();
+        for (String current = type1; current != null; ) {
+            chain.add(current);
+            final Entry entry = this.get(current);
+            if (entry == null) return null;
+            current = entry.superName();
+        }
+
+        for (String current = type2; current != null; ) {
+            if (chain.contains(current)) return current;
+            final Entry entry = this.get(current);
+            if (entry == null) return null;
+            current = entry.superName();
+        }
+
+        return OBJECT;
+    }
+
+    /**
+     * The indexed header of a class
+     *
+     * @param access
+     *     the access flags of the class
+     * @param superName
+     *     the internal name of the super class, {@code null} for {@code java/lang/Object}
+     * @param interfaces
+     *     the internal names of the implemented interfaces
+     * @param members
+     *     the member signatures of the class, or {@code null} if not read yet
+     */
+    public record Entry(int access, @Nullable String superName, String @NonNull [] interfaces, @Nullable Members members) {
+
+        public boolean isInterface() {
+            return (this.access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+
+    /**
+     * The member signatures of a class, as declared in its original bytes. Each kind of member is kept as a sorted
+     * array of signatures with a parallel array of access flags, so lookups are binary searches without any per-member
+     * objects
+     *
+     * @param fields
+     *     the sorted field names
+     * @param fieldAccess
+     *     the access flags of each field
+     * @param methods
+     *     the sorted method names concatenated with their descriptors
+     * @param methodAccess
+     *     the access flags of each method
+     */
+    public record Members(String @NonNull [] fields, int @NonNull [] fieldAccess, String @NonNull [] methods, int @NonNull [] methodAccess) {
+
+        static @NonNull Members of(final @NonNull ClassNode node) {
+            final String[] fields = new String[node.fields.size()];
+            final int[] fieldAccess = new int[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                final FieldNode field = node.fields.get(i);
+                fields[i] = field.name;
+                fieldAccess[i] = field.access;
+            }
+
+            final String[] methods = new String[node.methods.size()];
+            final int[] methodAccess = new int[methods.length];
+            for (int i = 0; i < methods.length; i++) {
+                final MethodNode method = node.methods.get(i);
+                methods[i] = method.name.concat(method.desc);
+                methodAccess[i] = method.access;
+            }
+
+            sort(fields, fieldAccess);
+            sort(methods, methodAccess);
+            return new Members(fields, fieldAccess, methods, methodAccess);
+        }
+
+        private static void sort(final String @NonNull [] signatures, final int @NonNull [] access) {
+            final int[] order = new int[signatures.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            IntArrays.quickSort(order, (first, second) -> signatures[first].compareTo(signatures[second]));
+
+            final String[] sortedSignatures = new String[signatures.length];
+            final int[] sortedAccess = new int[access.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedSignatures[i] = signatures[order[i]];
+                sortedAccess[i] = access[order[i]];
+            }
+            System.arraycopy(sortedSignatures, 0, signatures, 0, signatures.length);
+            System.arraycopy(sortedAccess, 0, access, 0, access.length);
+        }
+
+        /**
+         * Gets the access flags of a field
+         *
+         * @param name
+         *     the field name
+         *
+         * @return the access flags, or {@code -1} if the class declares no such field
+         */
+        public int fieldAccess(final @NonNull String name) {
+            final int index = Arrays.binarySearch(this.fields, name);
+            return index < 0 ? -1 : this.fieldAccess[index];
+        }
+
+        /**
+         * Gets the access flags of a method
+         *
+         * @param name
+         *     the method name
+         * @param descriptor
+         *     the method descriptor
+         *
+         * @return the access flags, or {@code -1} if the class declares no such method
+         */
+        public int methodAccess(final @NonNull String name, final @NonNull String descriptor) {
+            final int index = Arrays.binarySearch(this.methods, name.concat(descriptor));
+            return index < 0 ? -1 : this.methodAccess[index];
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.canvasmc.horizon.service.transform;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.canvasmc.horizon.transformer.MixinTransformationImpl;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * A short-lived cache of the class nodes read by Mixin during boot, so the transformation of the same class in the
+ * {@link TransformPhase#INITIALIZE} phase doesn't parse its bytes again.
+ * <p>
+ * Nodes are kept pristine, Mixin is always handed its own copy, while the transformation takes ownership of the cached
+ * node and removes it. Entries are keyed by internal name and reader flags, and only reused when the checksum of the
+ * bytes matches the bytes they were read from. Cached nodes are softly referenced and bounded by the total size of
+ * their class files, and the whole cache is dropped once the boot has completed
+ *
+ * @author dueris
+ */
+public final class ClassNodeCache {
+    /**
+     * The maximum total size of the class files of the cached nodes in MiB, configured with
+     * {@code -DHorizon.classNodeCache=<MiB>}, or {@code 0} to disable the cache
+     */
+    public static final long MAXIMUM_SIZE = Long.getLong("Horizon.classNodeCache", 32L);
+
+    private final @Nullable Cache<Key, Entry> entries;
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    private volatile boolean open;
+
+    /**
+     * Constructs a new class node cache
+     *
+     * @param maximumSize
+     *     the maximum total size of the class files of the cached nodes in bytes, or {@code 0} to disable the cache
+     */
+    public ClassNodeCache(final long maximumSize) {
+        this.open = maximumSize > 0;
+        this.entries = this.open
+            ? CacheBuilder.newBuilder()
+                .maximumWeight(maximumSize)
+                .<Key, Entry>weigher((key, entry) -> entry.length)
+                .softValues()
+                .build()
+            : null;
+    }
+
+    /**
+     * Copies a class node, so the copy can be modified without affecting the original
+     *
+     * @param node
+     *     the class node to copy
+     *
+     * @return the copy
+     */
+    public static @NonNull ClassNode copy(final @NonNull ClassNode node) {
+        final ClassNode copy = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+        node.accept(copy);
+        return copy;
+    }
+
+    /**
+     * Gets a copy of the cached node of a class
+     *
+     * @param internalName
+     *     the internal name of the class
+     * @param readerFlags
+     *     the flags the node was read with
+     * @param input
+     *     the bytes of the class
+     *
+     * @return a copy of the cached node, or {@code null} if there is no node read from the same bytes
+     */
+    public @Nullable ClassNode copy(final @NonNull String internalName, final int readerFlags, final byte @NonNull [] input) {
+        if (!this.open) return null;
+
+        final Entry entry = this.entries.getIfPresent(new Key(internalName, readerFlags));
+        return entry != null && entry.matches(input) ? entry.copy() : null;
+    }
+
+    /**
+     * Caches the node of a class. The node must not be modified afterward, as it may be handed to the
+     * transformation of the class
+     *
+     * @param internalName
+     *     the internal name of the class
+     * @param readerFlags
+     *     the flags the node was read with
+     * @param input
+     *     the bytes the node was read from
+     * @param node
+     *     the class node
+     *
+     * @return {@code true} if the node was cached
+     */
+    public boolean put(final @NonNull String internalName, final int readerFlags, final byte @NonNull [] input, final @NonNull ClassNode node) {
+        if (!this.open || input.length == 0) return false;
+
+        this.entries.put(new Key(internalName, readerFlags), new Entry(checksum(input), input.length, node));
+        this.stored.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Takes ownership of the cached node of a class, read without any reader flags, removing it from the cache
+     *
+     * @param internalName
+     *     the internal name of the class
+     * @param input
+     *     the bytes of the class
+     *
+     * @return the cached node, or {@code null} if there is no node read from the same bytes
+     */
+    public @Nullable ClassNode take(final @NonNull String internalName, final byte @NonNull [] input) {
+        if (!this.open) return null;
+
+        final Entry entry = this.entries.asMap().remove(new Key(internalName, 0));
+        if (entry == null || !entry.matches(input)) return null;
+
+        final ClassNode node = entry.claim();
+        if (node != null) this.reused.incrementAndGet();
+        return node;
+    }
+
+    /**
+     * Drops every cached node, and stops caching new nodes
+     */
+    public void close() {
+        if (!this.open) return;
+
+        this.open = false;
+        this.entries.invalidateAll();
+        LOGGER.debug("Closed class node cache, reused ({}) of ({}) class nodes read by Mixin", this.reused.get(), this.stored.get());
+    }
+
+    private static int checksum(final byte @NonNull [] input) {
+        final CRC32C crc = new CRC32C();
+        crc.update(input, 0, input.length);
+        return (int) crc.getValue();
+    }
+
+    private record Key(@NonNull String internalName, int readerFlags) {
+    }
+
+    private static final class Entry {
+        private final int checksum;
+        private final int length;
+        private @Nullable ClassNode node;
+
+        Entry(final int checksum, final int length, final @NonNull ClassNode node) {
+            this.checksum = checksum;
+            this.length = length;
+            this.node = node;
+        }
+
+        boolean matches(final byte @NonNull [] input) {
+            return this.length == input.length && this.checksum == checksum(input);
+        }
+
+        // visiting a node resets its labels, so copies can't run alongside each other or the owner
+        synchronized @Nullable ClassNode copy() {
+            return this.node == null ? null : ClassNodeCache.copy(this.node);
+        }
+
+        synchronized @Nullable ClassNode claim() {
+            final ClassNode node = this.node;
+            this.node = null;
+            return node;
+        }
+    }
+}
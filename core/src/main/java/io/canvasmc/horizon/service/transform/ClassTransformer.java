@@ -1,26 +1,63 @@
 package io.canvasmc.horizon.service.transform;
 
 import io.canvasmc.horizon.HorizonLoader;
+import io.canvasmc.horizon.metrics.HorizonMetrics;
+import io.canvasmc.horizon.metrics.event.ClassTransformEvent;
+import io.canvasmc.horizon.metrics.event.ServiceTransformEvent;
 import io.canvasmc.horizon.plugin.types.HorizonPlugin;
 import io.canvasmc.horizon.transformer.MixinTransformationImpl;
+import io.canvasmc.horizon.util.PrefixFilter;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.UnmodifiableView;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 
 import static io.canvasmc.horizon.HorizonLoader.LOGGER;
@@ -35,21 +72,66 @@ import static io.canvasmc.horizon.HorizonLoader.LOGGER;
 public final class ClassTransformer {
     private final Map<Class<? extends TransformationService>, TransformationService> services;
     private final Map<TransformPhase, List<TransformationService>> orderedCache;
+    private final ClassHierarchyIndex hierarchy;
+    private final ThreadLocal<Boolean> transforming = ThreadLocal.withInitial(() -> false);
+    private final Map<TransformationService, ReentrantLock> locks = new IdentityHashMap<>();
+    private final Map<TransformationService, ThreadLocal<TransformationService>> instances = new IdentityHashMap<>();
 
-    private Predicate<String> exclusionFilter;
+    private volatile boolean prebooted = false;
 
-    public ClassTransformer() {
+    private volatile PrefixFilter exclusions;
+    private volatile @Nullable Predicate<String> exclusionFilter;
+    private volatile @Nullable TransformCache cache;
+    private volatile boolean cacheReady = false;
+    private final @Nullable PluginClassCache pluginCache = PluginClassCache.MAXIMUM_SIZE > 0
+        ? new PluginClassCache(PluginClassCache.MAXIMUM_SIZE << 20)
+        : null;
+    private final ClassNodeCache nodes = new ClassNodeCache(ClassNodeCache.MAXIMUM_SIZE << 20);
+
+    /**
+     * Constructs the class transformer, registering the transformation services and exclusions declared by every
+     * Horizon plugin
+     *
+     * @param hierarchy
+     *     the class hierarchy index used for frame computation
+     */
+    public ClassTransformer(final @NonNull ClassHierarchyIndex hierarchy) {
+        this(hierarchy, pluginServices(), pluginExclusions());
+    }
+
+    /**
+     * Constructs a class transformer running only the given services, without looking up the services and exclusions
+     * declared by Horizon plugins. This doesn't require a running {@link HorizonLoader}, like for benchmarks
+     *
+     * @param hierarchy
+     *     the class hierarchy index used for frame computation
+     * @param services
+     *     the transformation services, at most one of each class
+     * @param exclusions
+     *     the names excluded from transformation
+     */
+    @ApiStatus.Internal
+    public ClassTransformer(final @NonNull ClassHierarchyIndex hierarchy, final @NonNull Collection<? extends TransformationService> services, final @NonNull PrefixFilter exclusions) {
+        this.hierarchy = hierarchy;
         this.orderedCache = new ConcurrentHashMap<>();
         this.services = new IdentityHashMap<>();
-        this.exclusionFilter = path -> true;
+        for (final TransformationService service : services) {
+            this.services.put(service.getClass(), service);
+        }
+
+        this.exclusions = exclusions;
+        this.services.values().forEach(this::schedule);
+    }
 
+    private static @NonNull List<TransformationService> pluginServices() {
+        final List<TransformationService> services = new ArrayList<>();
         for (HorizonPlugin horizonPlugin : HorizonLoader.getInstance().getPlugins().getAll()) {
             for (String service : horizonPlugin.pluginMetadata().transformers()) {
                 try {
                     Class<?> serviceClazz = Class.forName(service);
                     if (TransformationService.class.isAssignableFrom(serviceClazz)) {
                         TransformationService transformerObj = (TransformationService) serviceClazz.getDeclaredConstructor().newInstance();
-                        services.put(transformerObj.getClass(), transformerObj);
+                        services.add(transformerObj);
                         LOGGER.debug("Registered class transformer from {}, \"{}\"", horizonPlugin.pluginMetadata().name(), serviceClazz.getName());
                     }
                     else
@@ -62,6 +144,43 @@ public final class ClassTransformer {
                 }
             }
         }
+        return services;
+    }
+
+    private static @NonNull PrefixFilter pluginExclusions() {
+        final PrefixFilter.Builder exclusions = PrefixFilter.builder();
+        for (HorizonPlugin horizonPlugin : HorizonLoader.getInstance().getPlugins().getAll()) {
+            exclusions.exclude(horizonPlugin.pluginMetadata().transformerExclusions());
+        }
+        return exclusions.build();
+    }
+
+    private void schedule(final @NonNull TransformationService service) {
+        switch (service.concurrency()) {
+            case THREAD_SAFE -> {
+            }
+            case SERIALIZED -> this.locks.put(service, new ReentrantLock());
+            case PER_THREAD -> this.instances.put(service, ThreadLocal.withInitial(() -> {
+                try {
+                    final TransformationService instance = service.getClass().getDeclaredConstructor().newInstance();
+                    if (this.prebooted) instance.preboot();
+                    return instance;
+                } catch (final ReflectiveOperationException exe) {
+                    throw new IllegalStateException("Couldn't create per-thread transformer '" + service.getClass().getName() + "'", exe);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Runs the {@link TransformationService#preboot()} of every registered service. Per-thread instances created after
+     * this are prebooted when they are created
+     */
+    public void preboot() {
+        for (final TransformationService service : this.services.values()) {
+            service.preboot();
+        }
+        this.prebooted = true;
     }
 
     /**
@@ -71,7 +190,20 @@ public final class ClassTransformer {
      *     the exclusion filter to add
      */
     public void addExclusionFilter(final @NonNull Predicate<String> predicate) {
-        this.exclusionFilter = predicate.and(predicate);
+        final Predicate<String> existing = this.exclusionFilter;
+        this.exclusionFilter = existing == null ? predicate : existing.and(predicate);
+        if (this.pluginCache != null) this.pluginCache.invalidateAll();
+    }
+
+    /**
+     * Adds an exclusion filter, compiled into the prefix filter for bytecode transformation
+     *
+     * @param filter
+     *     the prefix filter to add
+     */
+    public void addExclusionFilter(final @NonNull PrefixFilter filter) {
+        this.exclusions = this.exclusions.toBuilder().merge(filter).build();
+        if (this.pluginCache != null) this.pluginCache.invalidateAll();
     }
 
     /**
@@ -98,6 +230,100 @@ public final class ClassTransformer {
         return Collections.unmodifiableCollection(this.services.values());
     }
 
+    /**
+     * Gets the class hierarchy index used for frame computation
+     *
+     * @return the hierarchy index
+     */
+    public @NonNull ClassHierarchyIndex getHierarchy() {
+        return this.hierarchy;
+    }
+
+    /**
+     * Gets the cache of class nodes read by Mixin during boot, reused by the transformation of their classes
+     *
+     * @return the class node cache
+     */
+    public @NonNull ClassNodeCache getNodeCache() {
+        return this.nodes;
+    }
+
+    /**
+     * Checks if the current thread is running the transformation services on a class
+     *
+     * @return {@code true} if a transformation is in progress on this thread
+     */
+    public boolean isTransforming() {
+        return this.transforming.get();
+    }
+
+    /**
+     * Checks if the given thread is waiting for a serialized transformation service the current thread is holding
+     *
+     * @param thread
+     *     the thread to check
+     *
+     * @return {@code true} if the thread can't continue its transformation until the current thread completes its own
+     */
+    public boolean blocks(final @NonNull Thread thread) {
+        for (final ReentrantLock lock : this.locks.values()) {
+            if (lock.isHeldByCurrentThread() && lock.hasQueuedThread(thread)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Enables the persistent transformation cache. This must be called after all services have completed their
+     * {@link TransformationService#preboot()}, as the cache is keyed on the state of the services at that point
+     *
+     * @param root
+     *     the root directory of the cache
+     */
+    public void enableCache(final @NonNull Path root) {
+        final MessageDigest digest = TransformCache.newDigest();
+        digest.update(HorizonLoader.getInstance().getHorizonVersion().getBytes(StandardCharsets.UTF_8));
+
+        // plugin jars cover the code of every service, mixin, and access transformer
+        HorizonLoader.getInstance().getPlugins().getAll().stream()
+            .map(plugin -> plugin.file().ioFile())
+            .sorted()
+            .forEach(file -> {
+                digest.update(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                digest.update(Long.toString(file.length()).getBytes(StandardCharsets.UTF_8));
+                digest.update(Long.toString(file.lastModified()).getBytes(StandardCharsets.UTF_8));
+            });
+
+        final List<TransformationService> services = this.services.values().stream()
+            .sorted(Comparator.comparing(service -> service.getClass().getName()))
+            .toList();
+        for (final TransformationService service : services) {
+            digest.update(service.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            try {
+                service.fingerprint(digest);
+            } catch (final RuntimeException exception) {
+                // an incomplete fingerprint could serve stale classes, so run without the cache instead
+                LOGGER.error(exception, "Failed to fingerprint transformation service {}, the transformation cache is disabled", service.getClass().getName());
+                return;
+            }
+        }
+
+        final String environment = TransformCache.toKey(digest);
+        try {
+            this.cache = TransformCache.open(root, environment);
+            LOGGER.debug("Enabled transformation cache for environment {}", environment);
+        } catch (final IOException exception) {
+            LOGGER.error(exception, "Failed to open transformation cache at {}", root);
+        }
+    }
+
+    private boolean cacheReady() {
+        if (this.cacheReady) return true;
+        for (final TransformationService service : this.services.values()) {
+            if (!service.cacheReady()) return false;
+        }
+        return this.cacheReady = true;
+    }
+
     /**
      * Transforms the byte array input with the transformation services registered
      *
@@ -111,48 +337,427 @@ public final class ClassTransformer {
      * @return the transformed byte array
      */
     public byte @NonNull [] transformBytes(final @NonNull String className, final byte @NonNull [] input, final @NonNull TransformPhase phase) {
-        final String internalName = className.replace('.', '/');
+        final Type type = this.transformableType(className, phase);
+        if (type == null) return input;
 
-        if (!this.exclusionFilter.test(internalName)) {
-            LOGGER.debug("Skipping resource excluded class: {}", internalName);
-            return input;
+        return this.transform(type, input, phase, new Pass());
+    }
+
+    /**
+     * Transforms the buffer input with the transformation services registered. The bytes are only copied out of the
+     * buffer when a service may transform the class, otherwise the input buffer is returned as is
+     *
+     * @param className
+     *     the name of the class being transformed
+     * @param input
+     *     the buffer input, which is not consumed
+     * @param phase
+     *     the current transformation phase
+     *
+     * @return the transformed buffer, or the input buffer if the class was not transformed
+     */
+    public @NonNull ByteBuffer transformBytes(final @NonNull String className, final @NonNull ByteBuffer input, final @NonNull TransformPhase phase) {
+        return this.transformBytes(className, input, phase, null);
+    }
+
+    /**
+     * Transforms the buffer input with the transformation services registered, stopping before the next serialized
+     * service once the transformation is abandoned. The output of an abandoned transformation must be discarded, and
+     * is never cached
+     *
+     * @param className
+     *     the name of the class being transformed
+     * @param input
+     *     the buffer input, which is not consumed
+     * @param phase
+     *     the current transformation phase
+     * @param abandoned
+     *     checked before every serialized service, returns {@code true} once the transformation is abandoned
+     *
+     * @return the transformed buffer, or the input buffer if the class was not transformed
+     */
+    public @NonNull ByteBuffer transformBytes(
+        final @NonNull String className, final @NonNull ByteBuffer input, final @NonNull TransformPhase phase, final @Nullable BooleanSupplier abandoned
+    ) {
+        final Type type = this.transformableType(className, phase);
+        if (type == null) return input;
+
+        final byte[] bytes = new byte[input.remaining()];
+        input.duplicate().get(bytes);
+
+        final byte[] output = this.transform(type, bytes, phase, new Pass(abandoned));
+        return output == bytes ? input : ByteBuffer.wrap(output);
+    }
+
+    /**
+     * Transforms a class of a Paper or Spigot plugin, loaded by its own plugin class loader, in the
+     * {@link TransformPhase#INITIALIZE} phase. Results are memoized in the {@link PluginClassCache} across plugin
+     * class loaders, so reloaded plugins skip the transformation services entirely
+     *
+     * @param loader
+     *     the plugin class loader
+     * @param source
+     *     the code source of the class
+     * @param className
+     *     the name of the class being transformed
+     * @param input
+     *     the byte array input
+     *
+     * @return the transformed byte array
+     */
+    public byte @NonNull [] transformPluginBytes(final @NonNull ClassLoader loader, final @Nullable CodeSource source, final @NonNull String className, final byte @NonNull [] input) {
+        final PluginClassCache pluginCache = this.pluginCache;
+        final PluginClassCache.Key key = pluginCache == null ? null : pluginCache.key(loader, source, className);
+        if (key != null) {
+            final byte[] cached = pluginCache.get(key, input);
+            if (cached != null) return cached;
+        }
+
+        final Type type = this.transformableType(className, TransformPhase.INITIALIZE);
+        final Pass pass = new Pass();
+        final byte[] output = type == null ? input : this.transform(type, input, TransformPhase.INITIALIZE, pass);
+        if (key != null && pass.cacheable) pluginCache.put(key, output == input ? null : output);
+        return output;
+    }
+
+    private @Nullable Type transformableType(final @NonNull String className, final @NonNull TransformPhase phase) {
+        if (this.exclusions.excludes(className)) {
+            LOGGER.debug("Skipping resource excluded class: {}", className);
+            return null;
         }
 
-        ClassNode node = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+        final String internalName = className.replace('.', '/');
+        final Predicate<String> exclusionFilter = this.exclusionFilter;
+        if (exclusionFilter != null && !exclusionFilter.test(internalName)) {
+            LOGGER.debug("Skipping resource excluded class: {}", internalName);
+            return null;
+        }
 
         final Type type = Type.getObjectType(internalName);
+        if (!this.anyInterested(type, phase)) {
+            // every service rejected the class from its name alone, which still counts as examining it
+            final HorizonMetrics metrics = HorizonMetrics.get();
+            for (final TransformationService service : this.getOrderedServices(phase)) {
+                metrics.service(service.getClass().getName(), phase).recordRejected();
+            }
+            LOGGER.trace("Skipping uninteresting class: {}", internalName);
+            return null;
+        }
+
+        return type;
+    }
+
+    private byte @NonNull [] transform(final @NonNull Type type, final byte @NonNull [] input, final @NonNull TransformPhase phase, final @NonNull Pass pass) {
+        final ClassTransformEvent event = new ClassTransformEvent();
+        event.begin();
+
+        final List<TransformationService> services = this.interestedServices(type, phase);
+
+        // only the initialize phase is stable enough across boots to be cached, and classes a service
+        // may transform uncacheably are never stored, so they aren't hashed or looked up either
+        final TransformCache cache = phase == TransformPhase.INITIALIZE && input.length > 0 && this.cacheReady() && cacheable(services, type)
+            ? this.cache
+            : null;
+        final String key;
+        if (cache != null) {
+            key = cache.key(input);
+            final byte[] cached = cache.get(key, input);
+            if (cached != null) {
+                commit(event, type, phase, null, true, input, cached);
+                return cached;
+            }
+        }
+        else key = null;
+
+        final HorizonMetrics metrics = HorizonMetrics.get();
+
+        final ClassReader reader;
         if (input.length > 0) {
-            final ClassReader reader = new ClassReader(input);
-            reader.accept(node, 0);
+            reader = new ClassReader(input);
+            this.hierarchy.record(reader);
+        }
+        else reader = null;
+
+        // consecutive visitor services at the front are fused into reading the class
+        int fused = 0;
+        if (reader != null) {
+            while (fused < services.size() && services.get(fused) instanceof VisitorTransformationService) fused++;
+        }
+
+        if (reader != null && fused == services.size()) {
+            // no tree services, stream the class straight from the reader into the writer
+            final long start = System.nanoTime();
+            final ClassWriter writer = new HorizonClassWriter(reader, 0, this.hierarchy);
+            if (!this.visit(type, reader, null, services, writer, phase, pass) || !pass.transformed) {
+                if (key != null && pass.cacheable) cache.put(key, null);
+                commit(event, type, phase, null, false, input, input);
+                return input;
+            }
+
+            final byte[] output = writer.toByteArray();
+            metrics.writer(phase).record(input.length, output.length, System.nanoTime() - start);
+            if (key != null && pass.cacheable) cache.put(key, output);
+            commit(event, type, phase, pass.transformers.toString(), false, input, output);
+            return output;
+        }
+
+        ClassNode node = null;
+        if (reader != null) {
+            // mixin may have already read the class while resolving its targets
+            final ClassNode cached = this.nodes.take(type.getInternalName(), input);
+            if (fused > 0) {
+                final ClassNode visited = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+                if (this.visit(type, reader, cached, services.subList(0, fused), visited, phase, pass)) node = visited;
+            }
+            if (node == null) {
+                // a visitor may have failed part way through the class, read it again without them
+                node = cached;
+                if (node == null) {
+                    node = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+                    reader.accept(node, 0);
+                }
+            }
+            // the tree is already built, so member signatures are indexed without reading the class again
+            this.hierarchy.record(node);
         }
         else {
+            node = new ClassNode(MixinTransformationImpl.ASM_VERSION);
             node.name = type.getInternalName();
             node.version = MixinEnvironment.getCompatibilityLevel().getClassVersion();
             node.superName = "java/lang/Object";
         }
 
-        boolean transformed = false;
-        for (final TransformationService service : this.getOrderedServices(phase)) {
-            try {
-                if (!service.shouldTransform(type, node)) continue;
-                final ClassNode transformedNode = service.transform(type, node, phase);
-                if (transformedNode != null) {
-                    node = transformedNode;
-                    transformed = true;
+        final MethodSnapshot snapshot = MethodSnapshot.of(node);
+        final boolean nested = this.transforming.get();
+        this.transforming.set(true);
+        try {
+            for (final TransformationService service : services.subList(fused, services.size())) {
+                final Lock lock = this.locks.get(service);
+                if (lock != null) lock.lock();
+                try {
+                    if (lock != null && pass.abandoned()) return input;
+
+                    final TransformationService instance = this.instance(service);
+                    final HorizonMetrics.ServiceCounters counters = metrics.service(service.getClass().getName(), phase);
+
+                    long start = System.nanoTime();
+                    final boolean shouldTransform = instance.shouldTransform(type, node);
+                    counters.recordShouldTransform(System.nanoTime() - start);
+                    if (!shouldTransform) continue;
+
+                    final ServiceTransformEvent serviceEvent = new ServiceTransformEvent();
+                    serviceEvent.begin();
+                    start = System.nanoTime();
+                    final ClassNode transformedNode = instance.transform(type, node, phase);
+                    counters.recordTransform(System.nanoTime() - start, transformedNode != null);
+                    serviceEvent.end();
+                    if (serviceEvent.shouldCommit()) {
+                        serviceEvent.className = type.getClassName();
+                        serviceEvent.service = service.getClass().getName();
+                        serviceEvent.phase = phase.name();
+                        serviceEvent.transformed = transformedNode != null;
+                        serviceEvent.commit();
+                    }
+                    if (transformedNode != null) {
+                        node = transformedNode;
+                        pass.transformed(service, type);
+                    }
+                } catch (final Throwable throwable) {
+                    // failures must be reproduced on every boot
+                    pass.cacheable = false;
+                    LOGGER.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
+                } finally {
+                    if (lock != null) lock.unlock();
                 }
+            }
+        } finally {
+            this.transforming.set(nested);
+        }
+
+        if (!pass.transformed) {
+            if (key != null && pass.cacheable) cache.put(key, null);
+            commit(event, type, phase, null, false, input, input);
+            return input;
+        }
+
+        final long start = System.nanoTime();
+        final byte[] output = this.write(node, reader, snapshot);
+        metrics.writer(phase).record(input.length, output.length, System.nanoTime() - start);
+        if (key != null && pass.cacheable) cache.put(key, output);
+        commit(event, type, phase, pass.transformers.toString(), false, input, output);
+        return output;
+    }
+
+    /**
+     * Runs the class through the visitors of the visitor services in a single pass, either from its bytes or from an
+     * already read class node, which is left unmodified
+     *
+     * @return {@code false} if a visitor failed, leaving the sink incomplete
+     */
+    private boolean visit(
+        final @NonNull Type type, final @NonNull ClassReader reader, final @Nullable ClassNode source, final @NonNull List<TransformationService> services,
+        final @NonNull ClassVisitor sink, final @NonNull TransformPhase phase, final @NonNull Pass pass
+    ) {
+        final HorizonMetrics metrics = HorizonMetrics.get();
+        final List<TransformationService> contributed = new ArrayList<>(services.size());
+        final List<Lock> held = new ArrayList<>(services.size());
+        final boolean nested = this.transforming.get();
+        this.transforming.set(true);
+        try {
+            // serialized services are busy for the whole pass, always locked in priority order
+            for (final TransformationService service : services) {
+                final Lock lock = this.locks.get(service);
+                if (lock == null) continue;
+                lock.lock();
+                held.add(lock);
+            }
+            if (!held.isEmpty() && pass.abandoned()) return false;
+
+            // chain from the back, so the first service visits the class first
+            ClassVisitor chain = sink;
+            for (int i = services.size() - 1; i >= 0; i--) {
+                final TransformationService service = services.get(i);
+                try {
+                    final long start = System.nanoTime();
+                    final ClassVisitor visitor = ((VisitorTransformationService) this.instance(service)).visitor(type, chain, phase);
+                    // creating the visitor is where a visitor service decides whether to transform the class
+                    metrics.service(service.getClass().getName(), phase).recordShouldTransform(System.nanoTime() - start);
+                    if (visitor == null) continue;
+
+                    chain = visitor;
+                    contributed.addFirst(service);
+                } catch (final Throwable throwable) {
+                    pass.cacheable = false;
+                    LOGGER.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
+                }
+            }
+
+            final long start = System.nanoTime();
+            try {
+                if (source != null) source.accept(chain);
+                else reader.accept(chain, 0);
             } catch (final Throwable throwable) {
-                LOGGER.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
+                recordVisit(metrics, contributed, phase, System.nanoTime() - start, false);
+                pass.cacheable = false;
+                LOGGER.error(throwable, "Failed to transform {} with {}", type.getClassName(),
+                    String.join(", ", contributed.stream().map(service -> service.getClass().getName()).toList()));
+                return false;
             }
+            recordVisit(metrics, contributed, phase, System.nanoTime() - start, true);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+            this.transforming.set(nested);
         }
 
-        if (!transformed) return input;
+        for (final TransformationService service : contributed) {
+            pass.transformed(service, type);
+        }
+        return true;
+    }
 
-        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-        node.accept(writer);
+    private static boolean cacheable(final @NonNull List<TransformationService> services, final @NonNull Type type) {
+        for (final TransformationService service : services) {
+            if (!service.cacheable(type)) return false;
+        }
+        return true;
+    }
+
+    private static void recordVisit(
+        final @NonNull HorizonMetrics metrics, final @NonNull List<TransformationService> services, final @NonNull TransformPhase phase,
+        final long nanos, final boolean transformed
+    ) {
+        if (services.isEmpty()) return;
+
+        // the visitors run interleaved in a single pass, so its time is split evenly between them
+        final long share = nanos / services.size();
+        for (final TransformationService service : services) {
+            metrics.service(service.getClass().getName(), phase).recordTransform(share, transformed);
+        }
+    }
+
+    private static void commit(
+        final @NonNull ClassTransformEvent event, final @NonNull Type type, final @NonNull TransformPhase phase,
+        final @Nullable String services, final boolean cached, final byte @NonNull [] input, final byte @NonNull [] output
+    ) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.className = type.getClassName();
+        event.phase = phase.name();
+        event.services = services;
+        event.cached = cached;
+        event.inputSize = input.length;
+        event.outputSize = output.length;
+        event.commit();
+    }
+
+    private byte @NonNull [] write(final @NonNull ClassNode node, final @Nullable ClassReader reader, final @NonNull MethodSnapshot snapshot) {
+        // generated classes have no bytes to be resolved from
+        if (reader == null) this.hierarchy.record(node);
+
+        // classes without stack map frames are rare enough to not bother
+        if ((node.version & 0xFFFF) < Opcodes.V1_6) {
+            final ClassWriter writer = new HorizonClassWriter(ClassWriter.COMPUTE_FRAMES, this.hierarchy);
+            node.accept(writer);
+            return writer.toByteArray();
+        }
+
+        // only recompute frames for the methods a service actually changed, every other
+        // method keeps the frames and maxs it was read with
+        final List<MethodNode> changed = new ArrayList<>();
+        for (final MethodNode method : node.methods) {
+            if (snapshot.changed(method)) changed.add(method);
+        }
+
+        if (!changed.isEmpty()) {
+            final ClassWriter frames = new HorizonClassWriter(ClassWriter.COMPUTE_FRAMES, this.hierarchy);
+            frames.visit(node.version, node.access, node.name, node.signature, node.superName, node.interfaces.toArray(new String[0]));
+            for (final MethodNode method : changed) {
+                method.accept(frames);
+            }
+            frames.visitEnd();
 
+            final ClassNode framed = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+            new ClassReader(frames.toByteArray()).accept(framed, 0);
+            for (int i = 0; i < changed.size(); i++) {
+                node.methods.set(node.methods.indexOf(changed.get(i)), framed.methods.get(i));
+            }
+        }
+
+        final ClassWriter writer = new HorizonClassWriter(reader, 0, this.hierarchy);
+        node.accept(writer);
         return writer.toByteArray();
     }
 
+    private @NonNull TransformationService instance(final @NonNull TransformationService service) {
+        final ThreadLocal<TransformationService> instance = this.instances.get(service);
+        return instance == null ? service : instance.get();
+    }
+
+    private @NonNull List<TransformationService> interestedServices(final @NonNull Type type, final @NonNull TransformPhase phase) {
+        final List<TransformationService> ordered = this.getOrderedServices(phase);
+        final List<TransformationService> interested = new ArrayList<>(ordered.size());
+        final HorizonMetrics metrics = HorizonMetrics.get();
+        for (final TransformationService service : ordered) {
+            try {
+                if (service.interested(type)) interested.add(service);
+                else metrics.service(service.getClass().getName(), phase).recordRejected();
+            } catch (final Throwable throwable) {
+                LOGGER.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
+            }
+        }
+        return interested;
+    }
+
+    private boolean anyInterested(final @NonNull Type type, final @NonNull TransformPhase phase) {
+        for (final TransformationService service : this.getOrderedServices(phase)) {
+            if (service.interested(type)) return true;
+        }
+        return false;
+    }
+
     private List<TransformationService> getOrderedServices(final @NonNull TransformPhase phase) {
         return orderedCache.computeIfAbsent(phase, p -> {
             final List<TransformationService> ordered = new ArrayList<>();
@@ -165,4 +770,142 @@ public final class ClassTransformer {
             return Collections.unmodifiableList(ordered);
         });
     }
+
+    /**
+     * The outcome of running the services on a single class
+     */
+    private static final class Pass {
+        private final StringJoiner transformers = new StringJoiner(",");
+        private final @Nullable BooleanSupplier abandoned;
+        private boolean transformed = false;
+        private boolean cacheable = true;
+
+        Pass() {
+            this(null);
+        }
+
+        Pass(final @Nullable BooleanSupplier abandoned) {
+            this.abandoned = abandoned;
+        }
+
+        boolean abandoned() {
+            if (this.abandoned == null || !this.abandoned.getAsBoolean()) return false;
+            this.cacheable = false;
+            return true;
+        }
+
+        void transformed(final @NonNull TransformationService service, final @NonNull Type type) {
+            this.transformed = true;
+            this.cacheable &= service.cacheable(type);
+            this.transformers.add(service.getClass().getName());
+        }
+    }
+
+    /**
+     * The state of every method before transformation, used to find the methods whose frames need to be recomputed
+     */
+    private static final class MethodSnapshot {
+        private final Map<MethodNode, State> states;
+
+        private MethodSnapshot(final @NonNull Map<MethodNode, State> states) {
+            this.states = states;
+        }
+
+        static @NonNull MethodSnapshot of(final @NonNull ClassNode node) {
+            final Map<MethodNode, State> states = new IdentityHashMap<>(node.methods.size());
+            for (final MethodNode method : node.methods) {
+                states.put(method, State.of(method));
+            }
+            return new MethodSnapshot(states);
+        }
+
+        boolean changed(final @NonNull MethodNode method) {
+            final State state = this.states.get(method);
+            // methods added by a service are always changed
+            return state == null || !state.matches(method);
+        }
+
+        private record State(
+            String desc, int access, int maxStack, int maxLocals, AbstractInsnNode[] instructions, Object[] contents,
+            Object[] tryCatchBlocks, List<List<Object>> tryCatchContents, @Nullable List<List<Object>> localVariables
+        ) {
+
+            static @NonNull State of(final @NonNull MethodNode method) {
+                final AbstractInsnNode[] instructions = method.instructions.toArray();
+                final Object[] contents = new Object[instructions.length];
+                for (int i = 0; i < instructions.length; i++) {
+                    contents[i] = content(instructions[i]);
+                }
+                return new State(
+                    method.desc, method.access, method.maxStack, method.maxLocals, instructions, contents,
+                    method.tryCatchBlocks.toArray(), tryCatchContents(method), localVariables(method)
+                );
+            }
+
+            boolean matches(final @NonNull MethodNode method) {
+                if (!this.desc.equals(method.desc) || ((this.access ^ method.access) & Opcodes.ACC_STATIC) != 0) return false;
+                if (this.maxStack != method.maxStack || this.maxLocals != method.maxLocals) return false;
+                if (this.instructions.length != method.instructions.size() || this.tryCatchBlocks.length != method.tryCatchBlocks.size()) return false;
+
+                // compare by identity, services mutate instruction lists in place, and by content, as
+                // they also mutate the instructions themselves
+                int index = 0;
+                for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext(), index++) {
+                    if (this.instructions[index] != insn || !this.contents[index].equals(content(insn))) return false;
+                }
+                for (int i = 0; i < this.tryCatchBlocks.length; i++) {
+                    if (this.tryCatchBlocks[i] != method.tryCatchBlocks.get(i)) return false;
+                }
+                return this.tryCatchContents.equals(tryCatchContents(method)) && Objects.equals(this.localVariables, localVariables(method));
+            }
+
+            /**
+             * Copies the opcode and operands of an instruction. Labels are kept by reference, and compared by
+             * identity like the instructions
+             */
+            private static @NonNull Object content(final @NonNull AbstractInsnNode insn) {
+                final int opcode = insn.getOpcode();
+                return switch (insn) {
+                    case IntInsnNode node -> Arrays.asList(opcode, node.operand);
+                    case VarInsnNode node -> Arrays.asList(opcode, node.var);
+                    case TypeInsnNode node -> Arrays.asList(opcode, node.desc);
+                    case FieldInsnNode node -> Arrays.asList(opcode, node.owner, node.name, node.desc);
+                    case MethodInsnNode node -> Arrays.asList(opcode, node.owner, node.name, node.desc, node.itf);
+                    case InvokeDynamicInsnNode node -> Arrays.asList(opcode, node.name, node.desc, node.bsm, Arrays.asList(node.bsmArgs.clone()));
+                    case JumpInsnNode node -> Arrays.asList(opcode, node.label);
+                    case LdcInsnNode node -> Arrays.asList(opcode, node.cst);
+                    case IincInsnNode node -> Arrays.asList(opcode, node.var, node.incr);
+                    case TableSwitchInsnNode node -> Arrays.asList(opcode, node.min, node.max, node.dflt, copy(node.labels));
+                    case LookupSwitchInsnNode node -> Arrays.asList(opcode, node.dflt, copy(node.keys), copy(node.labels));
+                    case MultiANewArrayInsnNode node -> Arrays.asList(opcode, node.desc, node.dims);
+                    case LineNumberNode node -> Arrays.asList(opcode, node.line, node.start);
+                    case FrameNode node -> Arrays.asList(opcode, node.type, copy(node.local), copy(node.stack));
+                    // instructions without operands only need their opcode
+                    default -> opcode;
+                };
+            }
+
+            private static @NonNull List<List<Object>> tryCatchContents(final @NonNull MethodNode method) {
+                final List<List<Object>> contents = new ArrayList<>(method.tryCatchBlocks.size());
+                for (final TryCatchBlockNode block : method.tryCatchBlocks) {
+                    contents.add(Arrays.asList(block.start, block.end, block.handler, block.type));
+                }
+                return contents;
+            }
+
+            private static @Nullable List<List<Object>> localVariables(final @NonNull MethodNode method) {
+                if (method.localVariables == null) return null;
+
+                final List<List<Object>> variables = new ArrayList<>(method.localVariables.size());
+                for (final LocalVariableNode variable : method.localVariables) {
+                    variables.add(Arrays.asList(variable.name, variable.desc, variable.signature, variable.start, variable.end, variable.index));
+                }
+                return variables;
+            }
+
+            private static @Nullable List<?> copy(final @Nullable List<?> list) {
+                return list == null ? null : new ArrayList<>(list);
+            }
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package io.canvasmc.horizon.service.transform;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * The class writer used by the {@link ClassTransformer}. Common super classes for frame computation are resolved
+ * through the {@link ClassHierarchyIndex} instead of loading classes, only falling back to the default ASM behavior
+ * for classes the index can't locate
+ *
+ * @author dueris
+ */
+public final class HorizonClassWriter extends ClassWriter {
+    private final ClassHierarchyIndex hierarchy;
+
+    /**
+     * Constructs a new class writer
+     *
+     * @param flags
+     *     the ASM class writer flags
+     * @param hierarchy
+     *     the hierarchy index
+     */
+    public HorizonClassWriter(final int flags, final @NonNull ClassHierarchyIndex hierarchy) {
+        super(flags);
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Constructs a new class writer, copying the constant pool of the original class
+     *
+     * @param reader
+     *     the reader of the original class
+     * @param flags
+     *     the ASM class writer flags
+     * @param hierarchy
+     *     the hierarchy index
+     */
+    public HorizonClassWriter(final @Nullable ClassReader reader, final int flags, final @NonNull ClassHierarchyIndex hierarchy) {
+        super(reader, flags);
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    protected String getCommonSuperClass(final String type1, final String type2) {
+        final String common = this.hierarchy.commonSuperClass(type1, type2);
+        return common != null ? common : super.getCommonSuperClass(type1, type2);
+    }
+}
@@ -0,0 +1,141 @@
+package io.canvasmc.horizon.service.transform;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An in-memory cache of transformed classes of Paper and Spigot plugins, which are loaded by their own class loaders
+ * instead of the {@link io.canvasmc.horizon.service.EmberClassLoader}. Plugin class loaders are recreated whenever a
+ * plugin is reloaded, while the transformations applied to their classes don't change after boot, so results are
+ * kept across class loaders.
+ * <p>
+ * Entries are keyed by the jar of the class, identified by its path, size, and last modification time, and the class
+ * name. Transformed classes are bounded by their total size, while classes no service transformed are recorded in a
+ * separate negative cache, bounded by count, so they skip the transformation services without holding on to their
+ * bytes
+ *
+ * @author dueris
+ */
+public final class PluginClassCache {
+    /**
+     * The maximum total size of the cached transformed classes in MiB, configured with
+     * {@code -DHorizon.pluginClassCache=<MiB>}, or {@code 0} to disable the cache
+     */
+    public static final long MAXIMUM_SIZE = Long.getLong("Horizon.pluginClassCache", 64L);
+
+    private static final int MAXIMUM_UNTRANSFORMED = 1 << 16;
+
+    private final Cache<ClassLoader, String> jars = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+    private final Cache<Key, byte[]> transformed;
+    private final Cache<Key, Boolean> untransformed;
+
+    /**
+     * Constructs a new plugin class cache
+     *
+     * @param maximumSize
+     *     the maximum total size of the cached transformed classes in bytes
+     */
+    public PluginClassCache(final long maximumSize) {
+        this.transformed = CacheBuilder.newBuilder()
+            .maximumWeight(maximumSize)
+            .<Key, byte[]>weigher((key, bytes) -> bytes.length)
+            .build();
+        this.untransformed = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_UNTRANSFORMED)
+            .build();
+    }
+
+    /**
+     * Creates the key for a class loaded by a plugin class loader
+     *
+     * @param loader
+     *     the plugin class loader
+     * @param source
+     *     the code source of the class
+     * @param className
+     *     the name of the class
+     *
+     * @return the key, or {@code null} if the jar of the class can't be identified
+     */
+    public @Nullable Key key(final @NonNull ClassLoader loader, final @Nullable CodeSource source, final @NonNull String className) {
+        final URL location = source == null ? null : source.getLocation();
+        if (location == null) return null;
+
+        try {
+            // plugin class loaders only ever load a single jar, so it's only looked up once per loader
+            final String jar = this.jars.get(loader, () -> jarKey(location));
+            return jar.isEmpty() ? null : new Key(jar, className);
+        } catch (final ExecutionException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the cached transformation result of a class
+     *
+     * @param key
+     *     the class key
+     * @param input
+     *     the original class bytes, returned if the class was recorded as untransformed
+     *
+     * @return the cached class bytes, or {@code null} if there is no entry
+     */
+    public byte @Nullable [] get(final @NonNull Key key, final byte @NonNull [] input) {
+        if (this.untransformed.getIfPresent(key) != null) return input;
+        return this.transformed.getIfPresent(key);
+    }
+
+    /**
+     * Stores the transformation result of a class
+     *
+     * @param key
+     *     the class key
+     * @param output
+     *     the transformed class bytes, or {@code null} if the class was not transformed
+     */
+    public void put(final @NonNull Key key, final byte @Nullable [] output) {
+        if (output == null) this.untransformed.put(key, Boolean.TRUE);
+        else this.transformed.put(key, output);
+    }
+
+    /**
+     * Discards all cached results
+     */
+    public void invalidateAll() {
+        this.transformed.invalidateAll();
+        this.untransformed.invalidateAll();
+    }
+
+    private static @NonNull String jarKey(final @NonNull URL location) {
+        try {
+            final File file = Path.of(location.toURI()).toFile();
+            if (!file.isFile()) return "";
+            return file.getAbsolutePath() + '@' + file.length() + '@' + file.lastModified();
+        } catch (final URISyntaxException | IllegalArgumentException | FileSystemNotFoundException exception) {
+            return "";
+        }
+    }
+
+    /**
+     * The key of a plugin class
+     *
+     * @param jar
+     *     the identity of the jar of the class
+     * @param className
+     *     the name of the class
+     */
+    public record Key(@NonNull String jar, @NonNull String className) {
+    }
+}
@@ -0,0 +1,175 @@
+package io.canvasmc.horizon.service.transform;
+
+import io.canvasmc.horizon.util.Util;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.canvasmc.horizon.HorizonLoader.LOGGER;
+
+/**
+ * A persistent, content-addressed store of transformed class bytes.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the original class bytes, and are grouped under an environment key which
+ * covers everything else that can influence the output of the transformation services. When any plugin, mixin config,
+ * access transformer, or service changes, the environment key changes and the previous entries are discarded.
+ * <p>
+ * An empty entry records that no service transformed the class, so the original bytes can be defined directly
+ *
+ * @author dueris
+ */
+public final class TransformCache {
+    /**
+     * Whether the transformation cache is enabled, toggled with {@code -DHorizon.transformCache=false}
+     */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("Horizon.transformCache", "true"));
+    /**
+     * The name of the cache directory, relative to the Horizon cache location
+     */
+    public static final String DIRECTORY = "classes";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(TransformCache::newDigest);
+
+    private final Path directory;
+    private final ExecutorService writer;
+
+    private TransformCache(final @NonNull Path directory) {
+        this.directory = directory;
+        this.writer = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("Horizon Transform Cache")
+            .daemon()
+            .factory());
+    }
+
+    /**
+     * Opens the cache for the given environment key, discarding entries written for any other environment
+     *
+     * @param root
+     *     the root cache directory
+     * @param environment
+     *     the environment key
+     *
+     * @return the opened cache
+     *
+     * @throws IOException
+     *     if the cache directory couldn't be created
+     */
+    public static @NonNull TransformCache open(final @NonNull Path root, final @NonNull String environment) throws IOException {
+        Files.createDirectories(root);
+
+        // anything not matching the current environment can never be hit again
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (final Path child : stream) {
+                if (child.getFileName().toString().equals(environment)) continue;
+                Util.clearDirectory(child.toFile());
+                Files.deleteIfExists(child);
+                LOGGER.debug("Discarded stale transformation cache {}", child.getFileName());
+            }
+        }
+
+        final Path directory = root.resolve(environment);
+        Files.createDirectories(directory);
+        return new TransformCache(directory);
+    }
+
+    /**
+     * Creates a new SHA-256 digest, used for both entry keys and environment keys
+     *
+     * @return the digest
+     */
+    public static @NonNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    /**
+     * Formats the digest output as the hex string used for keys
+     *
+     * @param digest
+     *     the digest to complete
+     *
+     * @return the hex key
+     */
+    public static @NonNull String toKey(final @NonNull MessageDigest digest) {
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the entry key for the original class bytes
+     *
+     * @param input
+     *     the original class bytes
+     *
+     * @return the entry key
+     */
+    public @NonNull String key(final byte @NonNull [] input) {
+        final MessageDigest digest = DIGEST.get();
+        digest.update(input);
+        return toKey(digest);
+    }
+
+    /**
+     * Gets the cached output for the entry key
+     *
+     * @param key
+     *     the entry key
+     * @param input
+     *     the original class bytes, returned if the class was recorded as untransformed
+     *
+     * @return the cached class bytes, or {@code null} if there is no entry
+     */
+    public byte @Nullable [] get(final @NonNull String key, final byte @NonNull [] input) {
+        try {
+            final byte[] cached = Files.readAllBytes(this.path(key));
+            return cached.length == 0 ? input : cached;
+        } catch (final NoSuchFileException ignored) {
+            return null;
+        } catch (final IOException exception) {
+            LOGGER.debug("Failed to read transformation cache entry {}: {}", key, exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the output for the entry key. Entries are written asynchronously and atomically, so a crash while writing
+     * never leaves a partial entry behind
+     *
+     * @param key
+     *     the entry key
+     * @param output
+     *     the transformed class bytes, or {@code null} if the class was not transformed
+     */
+    public void put(final @NonNull String key, final byte @Nullable [] output) {
+        this.writer.execute(() -> {
+            final Path target = this.path(key);
+            try {
+                Files.createDirectories(target.getParent());
+                final Path temporary = Files.createTempFile(target.getParent(), key, ".tmp");
+                Files.write(temporary, output == null ? new byte[0] : output);
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final IOException exception) {
+                LOGGER.debug("Failed to write transformation cache entry {}: {}", key, exception.getMessage());
+            }
+        });
+    }
+
+    private @NonNull Path path(final @NonNull String key) {
+        // fan out by the first byte to keep directory sizes reasonable
+        return this.directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
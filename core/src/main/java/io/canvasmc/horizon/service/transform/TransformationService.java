@@ -5,6 +5,10 @@ import org.jspecify.annotations.Nullable;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Defines a service capable of performing bytecode transformations on classes during the game bootstrap lifecycle.
  *
@@ -21,6 +25,23 @@ public interface TransformationService {
      */
     void preboot();
 
+    /**
+     * Returns the concurrency model of this transformer, deciding how the {@link ClassTransformer} schedules it when
+     * classes are transformed on multiple threads at once.
+     *
+     * <p>Only {@link #shouldTransform(Type, ClassNode)}, {@link #transform(Type, ClassNode, TransformPhase)}, and
+     * {@link VisitorTransformationService#visitor visitor creation and visiting} are scheduled. Every other method may
+     * be invoked concurrently regardless of the declared model.</p>
+     *
+     * <p>Defaults to {@link Concurrency#SERIALIZED}, as transformers which don't declare a model can't be assumed to
+     * be thread-safe.</p>
+     *
+     * @return the concurrency model
+     */
+    default @NonNull Concurrency concurrency() {
+        return Concurrency.SERIALIZED;
+    }
+
     /**
      * Returns the execution priority of this transformer for the given {@link TransformPhase}.
      *
@@ -37,6 +58,34 @@ public interface TransformationService {
      */
     int priority(final @NonNull TransformPhase phase);
 
+    /**
+     * Determines, from the class name alone, whether this transformer may want to transform the specified class.
+     *
+     * <p>This is checked before any {@link ClassNode} is built. Classes which no transformer is interested in are
+     * returned untouched without ever being parsed, so this should be as cheap as possible, and must never return
+     * {@code false} for a class {@link #shouldTransform(Type, ClassNode)} would accept.</p>
+     *
+     * @param type
+     *     the ASM type representing the class
+     *
+     * @return {@code true} if the class may be transformed; {@code false} if it certainly will not be
+     */
+    default boolean interested(final @NonNull Type type) {
+        return true;
+    }
+
+    /**
+     * Returns the internal names of the classes this transformer is known to transform.
+     *
+     * <p>Used to transform classes ahead of time when pretransformation is enabled, so this only has to be accurate
+     * after {@link #preboot()}. Classes missing here are still transformed when they are loaded.</p>
+     *
+     * @return the internal names of the known target classes
+     */
+    default @NonNull Collection<String> knownTargets() {
+        return List.of();
+    }
+
     /**
      * Determines whether this transformer should be applied to the specified class.
      *
@@ -72,4 +121,75 @@ public interface TransformationService {
         final @NonNull ClassNode node,
         final @NonNull TransformPhase phase
     ) throws Throwable;
+
+    /**
+     * Feeds everything, besides the class bytes themselves, that influences the output of this service into the digest
+     * used to key the {@link TransformCache persistent transformation cache}.
+     *
+     * <p>The cache already accounts for the set of registered services and the jars of all Horizon plugins. Services
+     * reading other external state, like configuration files, must contribute it here. If that state can't be read,
+     * an unchecked exception may be thrown, which disables the cache for this boot.</p>
+     *
+     * @param digest
+     *     the environment digest
+     */
+    default void fingerprint(final @NonNull MessageDigest digest) {
+    }
+
+    /**
+     * Determines whether the {@link TransformCache persistent transformation cache} may be used yet. While any service
+     * returns {@code false}, classes are neither served from nor stored in the cache.
+     *
+     * <p>Services which must see the first classes of a boot to set themselves up, and whose output isn't final until
+     * then, must return {@code false} until they are set up. Once every service returned {@code true}, this is no
+     * longer checked.</p>
+     *
+     * @return {@code true} if the cache may be used; {@code false} otherwise
+     */
+    default boolean cacheReady() {
+        return true;
+    }
+
+    /**
+     * Determines whether a class this service transformed may be stored in the
+     * {@link TransformCache persistent transformation cache}, skipping this service entirely on later boots.
+     *
+     * <p>Services whose transformations have side effects beyond the returned {@link ClassNode} must return
+     * {@code false}.</p>
+     *
+     * <p>This is checked before the cache is consulted, for every service interested in the class, so classes a
+     * service returns {@code false} for are neither read from nor stored in the cache.</p>
+     *
+     * @param type
+     *     the ASM type representing the transformed class
+     *
+     * @return {@code true} if the transformed output may be cached; {@code false} otherwise
+     */
+    default boolean cacheable(final @NonNull Type type) {
+        return true;
+    }
+
+    /**
+     * The concurrency models a {@link TransformationService} can declare.
+     */
+    enum Concurrency {
+        /**
+         * The transformer may transform any number of classes concurrently, on any thread.
+         */
+        THREAD_SAFE,
+        /**
+         * The transformer transforms one class at a time. Other threads wait until the current transformation is
+         * complete, while classes loaded by the transformer on its own thread are transformed immediately.
+         *
+         * <p>Serialized transformers shouldn't wait on other threads loading classes while transforming, as those
+         * threads may in turn be waiting on the transformer.</p>
+         */
+        SERIALIZED,
+        /**
+         * Every thread transforms with its own instance of the transformer. Instances besides the registered instance
+         * are constructed with the no-args constructor on the first transformation of each thread, and are prebooted
+         * if the registered instance already was, so they mustn't depend on state registered with other instances.
+         */
+        PER_THREAD
+    }
 }
@@ -0,0 +1,78 @@
+package io.canvasmc.horizon.service.transform;
+
+import io.canvasmc.horizon.transformer.MixinTransformationImpl;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * A {@link TransformationService} which transforms classes by contributing a {@link ClassVisitor} to a chain of
+ * visitors, instead of transforming a {@link ClassNode}.
+ *
+ * <p>Consecutive visitor services at the front of a phase are fused into a single pass over the class bytes. When
+ * no tree services follow them, the class is streamed straight from the reader into the writer, without ever
+ * building a {@link ClassNode} or recomputing stack map frames. Otherwise, the tree is built from the output of the
+ * visitor chain. Visitor services ordered after a tree service are applied to the tree, through
+ * {@link #transform(Type, ClassNode, TransformPhase)}.</p>
+ *
+ * <p>As frames are never recomputed for the fused pass, visitors must keep the stack map frames and maximum stack
+ * sizes of the methods they visit valid.</p>
+ */
+public interface VisitorTransformationService extends TransformationService {
+
+    /**
+     * Creates the visitor transforming the specified class during the given {@link TransformPhase}.
+     *
+     * <p>If the transformer will not modify the class, this method must return {@code null}. Otherwise, the returned
+     * visitor must delegate to the given visitor.</p>
+     *
+     * @param type
+     *     the ASM type representing the class
+     * @param delegate
+     *     the next visitor in the chain
+     * @param phase
+     *     the current transformation phase
+     *
+     * @return the transforming visitor, or {@code null} if the class will not be modified
+     *
+     * @throws Throwable
+     *     if an unrecoverable error occurs creating the visitor
+     */
+    @Nullable ClassVisitor visitor(
+        final @NonNull Type type,
+        final @NonNull ClassVisitor delegate,
+        final @NonNull TransformPhase phase
+    ) throws Throwable;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>By default, every class this service is {@link #interested(Type) interested} in is transformed.</p>
+     */
+    @Override
+    default boolean shouldTransform(final @NonNull Type type, final @NonNull ClassNode node) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>By default, the class node is passed through the {@link #visitor(Type, ClassVisitor, TransformPhase)
+     * visitor} into a new class node.</p>
+     */
+    @Override
+    default @Nullable ClassNode transform(
+        final @NonNull Type type,
+        final @NonNull ClassNode node,
+        final @NonNull TransformPhase phase
+    ) throws Throwable {
+        final ClassNode transformed = new ClassNode(MixinTransformationImpl.ASM_VERSION);
+        final ClassVisitor visitor = this.visitor(type, transformed, phase);
+        if (visitor == null) return null;
+
+        node.accept(visitor);
+        return transformed;
+    }
+}
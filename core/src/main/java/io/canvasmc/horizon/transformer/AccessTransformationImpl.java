@@ -1,19 +1,26 @@
 package io.canvasmc.horizon.transformer;
 
 import io.canvasmc.horizon.service.transform.TransformPhase;
-import io.canvasmc.horizon.service.transform.TransformationService;
+import io.canvasmc.horizon.service.transform.VisitorTransformationService;
 import io.canvasmc.horizon.transformer.widener.TransformerContainer;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Set;
+
 /**
  * The access transformer implementation provided by the Horizon internal plugin. Contains and applies access
- * transformers provided by Horizon plugins to the server or other plugin classes
+ * transformers provided by Horizon plugins to the server or other plugin classes. Classes only targeted by access
+ * transformers are streamed through a visitor, without building a class tree
  *
  * @author dueris
  */
-public final class AccessTransformationImpl implements TransformationService {
+public final class AccessTransformationImpl implements VisitorTransformationService {
     private final TransformerContainer container = new TransformerContainer();
     private volatile boolean initialized = false;
 
@@ -37,12 +44,33 @@ public final class AccessTransformationImpl implements TransformationService {
         initialized = true;
     }
 
+    @Override
+    public @NonNull Concurrency concurrency() {
+        // the compiled definitions are only read once the container is locked
+        return Concurrency.THREAD_SAFE;
+    }
+
     @Override
     public int priority(final @NonNull TransformPhase phase) {
         if (phase != TransformPhase.INITIALIZE) return -1;
         return 25;
     }
 
+    @Override
+    public void fingerprint(final @NonNull MessageDigest digest) {
+        container.fingerprint(digest);
+    }
+
+    @Override
+    public boolean interested(final @NonNull Type type) {
+        return initialized && container.isTarget(type.getInternalName());
+    }
+
+    @Override
+    public @NonNull Collection<String> knownTargets() {
+        return initialized ? container.targets() : Set.of();
+    }
+
     @Override
     public boolean shouldTransform(final @NonNull Type type, final @NonNull ClassNode node) {
         if (!initialized) {
@@ -52,6 +80,15 @@ public final class AccessTransformationImpl implements TransformationService {
         return container.shouldTransform(node);
     }
 
+    @Override
+    public @Nullable ClassVisitor visitor(final @NonNull Type type, final @NonNull ClassVisitor delegate, final @NonNull TransformPhase phase) {
+        if (!initialized) {
+            return null;
+        }
+
+        return container.visitor(type.getInternalName(), MixinTransformationImpl.ASM_VERSION, delegate);
+    }
+
     @Override
     public @NonNull ClassNode transform(final @NonNull Type type, final @NonNull ClassNode node, final @NonNull TransformPhase phase) throws Throwable {
         if (!initialized) {
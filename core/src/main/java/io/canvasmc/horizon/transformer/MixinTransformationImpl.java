@@ -1,5 +1,6 @@
 package io.canvasmc.horizon.transformer;
 
+import io.canvasmc.horizon.HorizonLoader;
 import io.canvasmc.horizon.service.transform.TransformPhase;
 import io.canvasmc.horizon.service.transform.TransformationService;
 import org.jspecify.annotations.NonNull;
@@ -9,27 +10,47 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.transformer.Config;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformerFactory;
 import org.spongepowered.asm.service.ISyntheticClassRegistry;
 import org.spongepowered.asm.transformers.MixinClassReader;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * The mixin transformation service implementation
  * <p>
- * Note: will attempt to transform everything,
- * {@link io.canvasmc.horizon.service.transform.TransformationService#shouldTransform(org.objectweb.asm.Type,
- * org.objectweb.asm.tree.ClassNode)} always returns true
+ * Note: {@link io.canvasmc.horizon.service.transform.TransformationService#shouldTransform(org.objectweb.asm.Type,
+ * org.objectweb.asm.tree.ClassNode)} always returns true, classes are narrowed down by name in
+ * {@link #interested(org.objectweb.asm.Type)} using the targets of the selected mixin configs instead
  *
  * @author dueris
  */
 public final class MixinTransformationImpl implements TransformationService {
     public static final int ASM_VERSION = Opcodes.ASM9;
 
+    // transformed only to have mixin select its configs, no mixin targets it
+    private static final String SELECTION_CLASS = "io.canvasmc.horizon.transformer.MixinSelection";
+
     private IMixinTransformerFactory transformerFactory;
     private IMixinTransformer transformer;
     private ISyntheticClassRegistry registry;
 
+    private volatile @Nullable InterestIndex interestIndex;
+
     public void offer(final @NonNull IMixinTransformerFactory factory) {
         this.transformerFactory = factory;
     }
@@ -41,18 +62,97 @@ public final class MixinTransformationImpl implements TransformationService {
         this.registry = this.transformer.getExtensions().getSyntheticClassRegistry();
     }
 
+    @Override
+    public @NonNull Concurrency concurrency() {
+        // the mixin transformer applies one class at a time, guarded by its re-entrance lock
+        return Concurrency.SERIALIZED;
+    }
+
     @Override
     public int priority(final @NonNull TransformPhase phase) {
         if (phase == TransformPhase.MIXIN) return -1;
         return 50;
     }
 
+    @Override
+    public boolean interested(final @NonNull Type type) {
+        // synthetic classes have no bytes of their own, and are only known to the registry
+        if (this.registry != null && this.shouldGenerateClass(type)) return true;
+
+        final InterestIndex index = this.interestIndex();
+        return index == null || index.contains(type.getInternalName());
+    }
+
+    private @Nullable InterestIndex interestIndex() {
+        final Set<Config> configs = Mixins.getConfigs();
+        InterestIndex index = this.interestIndex;
+        if (index != null && index.configCount() == configs.size()) return index;
+
+        // mixin only prepares configs, and with that their targets, when it selects them on the
+        // first transformation. until every config is selected, every class has to be offered
+        if (Mixins.getUnvisitedCount() > 0) return null;
+
+        final Set<String> targets = new HashSet<>();
+        final List<String> packages = new ArrayList<>();
+        for (final Config config : configs) {
+            final IMixinConfig mixinConfig = config.getConfig();
+            for (final String target : mixinConfig.getTargets()) {
+                targets.add(target.replace('.', '/'));
+            }
+            // mixin classes themselves still go through the transformer, so loading one directly is reported
+            final String mixinPackage = mixinConfig.getMixinPackage();
+            if (mixinPackage != null && !mixinPackage.isEmpty()) {
+                packages.add(mixinPackage.replace('.', '/'));
+            }
+        }
+
+        index = new InterestIndex(configs.size(), Set.copyOf(targets), packages.toArray(new String[0]));
+        this.interestIndex = index;
+        return index;
+    }
+
+    @Override
+    public @NonNull Collection<String> knownTargets() {
+        final InterestIndex index = this.interestIndex();
+        return index == null ? Set.of() : index.targets();
+    }
+
     @Override
     public boolean shouldTransform(final @NonNull Type type, final @NonNull ClassNode node) {
         // transform everything
         return true;
     }
 
+    @Override
+    public void fingerprint(final @NonNull MessageDigest digest) {
+        final ClassLoader loader = HorizonLoader.getInstance().getLaunchService().getClassLoader();
+        Mixins.getConfigs().stream()
+            .map(Config::getName)
+            .sorted(Comparator.naturalOrder())
+            .forEach(name -> {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                try (final InputStream stream = loader.getResourceAsStream(name)) {
+                    if (stream != null) digest.update(stream.readAllBytes());
+                } catch (final IOException exception) {
+                    throw new UncheckedIOException("Unable to read mixin config " + name, exception);
+                }
+            });
+    }
+
+    @Override
+    public boolean cacheReady() {
+        // mixin selects its configs on the first class it transforms, which must not be served from the cache.
+        // selecting them also validates mixins into server plugins, which is only possible during init
+        return Mixins.getUnvisitedCount() == 0;
+    }
+
+    @Override
+    public boolean cacheable(final @NonNull Type type) {
+        // applying mixins registers synthetic classes and other state with the mixin transformer,
+        // which would be missing if the transformed bytes were served from the cache
+        return false;
+    }
+
     @Override
     public @Nullable ClassNode transform(final @NonNull Type type, final @NonNull ClassNode node, final @NonNull TransformPhase phase) throws Throwable {
         if (this.shouldGenerateClass(type)) {
@@ -71,6 +171,23 @@ public final class MixinTransformationImpl implements TransformationService {
         return this.transformer.generateClass(MixinEnvironment.getCurrentEnvironment(), type.getClassName(), node);
     }
 
+    /**
+     * Selects every mixin config which isn't selected yet, which mixin otherwise only does once it transforms the
+     * next class. This resolves the targets of the configs, and validates mixins into server plugins, so it must be
+     * called during init, before classes are transformed on multiple threads
+     */
+    public void selectConfigs() {
+        if (Mixins.getUnvisitedCount() == 0) return;
+
+        // mixin selects pending configs before applying mixins to any class
+        final ClassNode node = new ClassNode(ASM_VERSION);
+        node.version = MixinEnvironment.getCompatibilityLevel().getClassVersion();
+        node.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+        node.name = SELECTION_CLASS.replace('.', '/');
+        node.superName = "java/lang/Object";
+        this.transformer.transformClass(MixinEnvironment.getCurrentEnvironment(), SELECTION_CLASS, node);
+    }
+
     public @NonNull ClassNode classNode(final @NonNull String canonicalName, final @NonNull String internalName, final byte @NonNull [] input, final int readerFlags) throws ClassNotFoundException {
         if (input.length != 0) {
             final ClassNode node = new ClassNode(ASM_VERSION);
@@ -87,4 +204,15 @@ public final class MixinTransformationImpl implements TransformationService {
 
         throw new ClassNotFoundException(canonicalName);
     }
+
+    private record InterestIndex(int configCount, Set<String> targets, String[] mixinPackages) {
+
+        boolean contains(final @NonNull String internalName) {
+            if (this.targets.contains(internalName)) return true;
+            for (final String mixinPackage : this.mixinPackages) {
+                if (internalName.startsWith(mixinPackage)) return true;
+            }
+            return false;
+        }
+    }
 }
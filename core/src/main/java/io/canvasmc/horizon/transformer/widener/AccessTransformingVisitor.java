@@ -0,0 +1,62 @@
+package io.canvasmc.horizon.transformer.widener;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A class visitor applying a {@link CompiledTarget} while the class is read, so access transformers can be applied
+ * without building a class tree
+ *
+ * @author dueris
+ */
+public final class AccessTransformingVisitor extends ClassVisitor {
+    private final CompiledTarget target;
+    private final Consumer<List<String>> report;
+    private final boolean[] matched;
+
+    /**
+     * Constructs a new access transforming visitor
+     *
+     * @param api
+     *     the ASM api version
+     * @param delegate
+     *     the visitor to delegate to
+     * @param target
+     *     the compiled definitions of the visited class
+     * @param report
+     *     the consumer of the definitions which couldn't be located, called when the class has been visited
+     */
+    public AccessTransformingVisitor(final int api, final @NonNull ClassVisitor delegate, final @NonNull CompiledTarget target, final @NonNull Consumer<List<String>> report) {
+        super(api, delegate);
+        this.target = target;
+        this.report = report;
+        this.matched = new boolean[target.size()];
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+        super.visit(version, this.target.applyClass(access, this.matched), name, signature, superName, interfaces);
+    }
+
+    @Override
+    public @Nullable FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
+        return super.visitField(this.target.applyField(name, access, this.matched), name, descriptor, signature, value);
+    }
+
+    @Override
+    public @Nullable MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+        return super.visitMethod(this.target.applyMethod(name, descriptor, access, this.matched), name, descriptor, signature, exceptions);
+    }
+
+    @Override
+    public void visitEnd() {
+        this.report.accept(this.target.missing(this.matched));
+        super.visitEnd();
+    }
+}
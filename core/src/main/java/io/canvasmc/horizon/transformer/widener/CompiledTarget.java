@@ -0,0 +1,236 @@
+package io.canvasmc.horizon.transformer.widener;
+
+import io.canvasmc.horizon.service.transform.ClassHierarchyIndex;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The definitions targeting a single class, compiled into lookup tables when the container is locked. Fields are keyed
+ * by name and methods by name and descriptor, so every definition is applied in a single pass over the members of the
+ * class, either on a {@link ClassNode} or while visiting the class.
+ * <p>
+ * Matches are tracked in a {@code boolean[]} of {@link #size()} entries, used to report the definitions whose member
+ * couldn't be located
+ *
+ * @author dueris
+ */
+public final class CompiledTarget {
+    private final String name;
+    private final String[] descriptors;
+    private final @Nullable Member classMember;
+    private final Object2ObjectOpenHashMap<String, Member> fields = new Object2ObjectOpenHashMap<>();
+    private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Member>> methods = new Object2ObjectOpenHashMap<>();
+
+    private CompiledTarget(final @NonNull String name, final @NonNull Collection<Definition> definitions) {
+        this.name = name;
+        this.descriptors = new String[definitions.size()];
+
+        Member classMember = null;
+        int index = 0;
+        for (final Definition definition : definitions) {
+            final Member member = new Member(index, definition.operation());
+            switch (definition.data()) {
+                case Definition.ClassData data -> {
+                    this.descriptors[index] = data.clazzName();
+                    classMember = member;
+                }
+                case Definition.FieldData data -> {
+                    this.descriptors[index] = data.fieldName();
+                    this.fields.put(data.fieldName(), member);
+                }
+                case Definition.MethodData data -> {
+                    final String descriptor = data.methodDescriptor();
+                    final int idx = descriptor.indexOf('(');
+                    this.descriptors[index] = descriptor;
+                    this.methods.computeIfAbsent(descriptor.substring(0, idx), k -> new Object2ObjectOpenHashMap<>())
+                        .put(descriptor.substring(idx), member);
+                }
+                default -> this.descriptors[index] = definition.toString();
+            }
+            index++;
+        }
+
+        this.classMember = classMember;
+        this.fields.trim();
+        this.methods.trim();
+    }
+
+    /**
+     * Compiles the definitions targeting a class
+     *
+     * @param name
+     *     the internal name of the target class
+     * @param definitions
+     *     the definitions, with at most one definition per member
+     *
+     * @return the compiled target
+     */
+    public static @NonNull CompiledTarget compile(final @NonNull String name, final @NonNull Collection<Definition> definitions) {
+        return new CompiledTarget(name, definitions);
+    }
+
+    /**
+     * Gets the internal name of the target class
+     *
+     * @return the internal name
+     */
+    public @NonNull String name() {
+        return this.name;
+    }
+
+    /**
+     * Gets the amount of compiled definitions, being the size of the match tracking arrays
+     *
+     * @return the amount of definitions
+     */
+    public int size() {
+        return this.descriptors.length;
+    }
+
+    /**
+     * Applies the class definition to the access flags of the class
+     *
+     * @param access
+     *     the access flags of the class
+     * @param matched
+     *     the match tracking array
+     *
+     * @return the transformed access flags
+     */
+    public int applyClass(final int access, final boolean @NonNull [] matched) {
+        return apply(this.classMember, access, matched);
+    }
+
+    /**
+     * Applies the definition of a field to its access flags
+     *
+     * @param name
+     *     the name of the field
+     * @param access
+     *     the access flags of the field
+     * @param matched
+     *     the match tracking array
+     *
+     * @return the transformed access flags
+     */
+    public int applyField(final @NonNull String name, final int access, final boolean @NonNull [] matched) {
+        return apply(this.fields.get(name), access, matched);
+    }
+
+    /**
+     * Applies the definition of a method to its access flags
+     *
+     * @param name
+     *     the name of the method
+     * @param descriptor
+     *     the descriptor of the method
+     * @param access
+     *     the access flags of the method
+     * @param matched
+     *     the match tracking array
+     *
+     * @return the transformed access flags
+     */
+    public int applyMethod(final @NonNull String name, final @NonNull String descriptor, final int access, final boolean @NonNull [] matched) {
+        final Object2ObjectOpenHashMap<String, Member> overloads = this.methods.get(name);
+        return overloads == null ? access : apply(overloads.get(descriptor), access, matched);
+    }
+
+    /**
+     * Applies every definition to the class node, in a single pass over its members
+     *
+     * @param node
+     *     the class node
+     *
+     * @return the descriptors of the definitions whose member couldn't be located
+     */
+    public @NonNull List<String> apply(final @NonNull ClassNode node) {
+        final boolean[] matched = new boolean[this.size()];
+        node.access = this.applyClass(node.access, matched);
+        for (final FieldNode field : node.fields) {
+            field.access = this.applyField(field.name, field.access, matched);
+        }
+        for (final MethodNode method : node.methods) {
+            method.access = this.applyMethod(method.name, method.desc, method.access, matched);
+        }
+        return this.missing(matched);
+    }
+
+    /**
+     * Validates every definition against the class node, without modifying it
+     *
+     * @param node
+     *     the class node
+     *
+     * @return the descriptors of the definitions whose member couldn't be located
+     */
+    public @NonNull List<String> validate(final @NonNull ClassNode node) {
+        final boolean[] matched = new boolean[this.size()];
+        this.applyClass(node.access, matched);
+        for (final FieldNode field : node.fields) {
+            this.applyField(field.name, field.access, matched);
+        }
+        for (final MethodNode method : node.methods) {
+            this.applyMethod(method.name, method.desc, method.access, matched);
+        }
+        return this.missing(matched);
+    }
+
+    /**
+     * Validates every definition against the indexed member signatures of the class, without needing its class node
+     *
+     * @param members
+     *     the member signatures of the class
+     *
+     * @return the descriptors of the definitions whose member couldn't be located
+     */
+    public @NonNull List<String> validate(final ClassHierarchyIndex.@NonNull Members members) {
+        final boolean[] matched = new boolean[this.size()];
+        if (this.classMember != null) matched[this.classMember.index()] = true;
+        this.fields.forEach((name, member) -> {
+            if (members.fieldAccess(name) != -1) matched[member.index()] = true;
+        });
+        this.methods.forEach((name, overloads) -> overloads.forEach((descriptor, member) -> {
+            if (members.methodAccess(name, descriptor) != -1) matched[member.index()] = true;
+        }));
+        return this.missing(matched);
+    }
+
+    /**
+     * Gets the descriptors of the definitions which weren't matched
+     *
+     * @param matched
+     *     the match tracking array
+     *
+     * @return the unmatched descriptors
+     */
+    public @NonNull List<String> missing(final boolean @NonNull [] matched) {
+        List<String> missing = null;
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i]) continue;
+            if (missing == null) missing = new ArrayList<>();
+            missing.add(this.descriptors[i]);
+        }
+        return missing == null ? List.of() : missing;
+    }
+
+    private static int apply(final @Nullable Member member, final int access, final boolean @NonNull [] matched) {
+        if (member == null) return access;
+        // only the first member matching a definition is transformed, like when searching the members
+        if (matched[member.index()]) return access;
+
+        matched[member.index()] = true;
+        return member.operation().apply(access);
+    }
+
+    private record Member(int index, @NonNull TransformOperation operation) {
+    }
+}
@@ -2,25 +2,26 @@ package io.canvasmc.horizon.transformer.widener;
 
 import io.canvasmc.horizon.HorizonLoader;
 import io.canvasmc.horizon.logger.Logger;
+import io.canvasmc.horizon.metrics.event.AccessTransformerValidationEvent;
 import io.canvasmc.horizon.plugin.types.HorizonPlugin;
-import io.canvasmc.horizon.service.BootstrapMixinService;
+import io.canvasmc.horizon.service.transform.ClassHierarchyIndex;
 import io.canvasmc.horizon.util.Util;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
-import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.FieldNode;
-import org.objectweb.asm.tree.MethodNode;
-import org.spongepowered.asm.mixin.MixinEnvironment;
-import org.spongepowered.asm.service.MixinService;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.jar.JarFile;
@@ -52,6 +53,13 @@ public class TransformerContainer {
 
     private static final Logger LOGGER = Logger.fork(HorizonLoader.LOGGER, "widener");
 
+    /**
+     * Whether every AT target is validated eagerly when locking, toggled with
+     * {@code -DHorizon.strictAccessTransformers=true}. Otherwise, definitions are validated against each target class
+     * as it's transformed, so boot doesn't have to read every target class ahead of time
+     */
+    public static final boolean STRICT = Boolean.getBoolean("Horizon.strictAccessTransformers");
+
     private static final int VIS_PUBLIC = 3;
     private static final int VIS_PROTECTED = 2;
     private static final int VIS_PRIVATE = 1;
@@ -61,6 +69,8 @@ public class TransformerContainer {
 
     private final Object2ObjectOpenHashMap<String, ObjectOpenHashSet<Definition>> definitionRegistry =
         new Object2ObjectOpenHashMap<>(8, 0.75F);
+    private final Object2ObjectOpenHashMap<String, CompiledTarget> compiledRegistry =
+        new Object2ObjectOpenHashMap<>(8, 0.75F);
     private volatile boolean locked = false;
 
     private static int visibilityRank(TransformOperation.@NonNull Access access) {
@@ -87,41 +97,6 @@ public class TransformerContainer {
             .build();
     }
 
-    private static boolean validateDefinitionTarget(final @NonNull ObjectIterator<Definition> iterator, final ClassNode node) {
-        final Definition definition = iterator.next();
-        boolean failed = false;
-        try {
-            switch (definition.data()) {
-                // class data doesn't need validation for being accurate
-                case Definition.FieldData fdata -> {
-                    String target = fdata.fieldName();
-                    node.fields.stream()
-                        .filter(f -> f.name.equals(target))
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException("Unable to locate AT target '" + target + "'"));
-                }
-                case Definition.MethodData mdata -> {
-                    String methodDescriptor = mdata.methodDescriptor();
-                    int idx = methodDescriptor.indexOf('(');
-                    String methodName = methodDescriptor.substring(0, idx);
-                    String methodDesc = methodDescriptor.substring(idx);
-
-                    node.methods.stream()
-                        .filter(m -> methodName.equals(m.name) && methodDesc.equals(m.desc))
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException("Unable to locate AT target '" + methodDescriptor + "'"));
-                }
-                default -> {
-                }
-            }
-        } catch (IllegalArgumentException e) {
-            LOGGER.error("{} for '{}'", e.getMessage(), node.name);
-            iterator.remove();
-            failed = true;
-        }
-        return failed;
-    }
-
     public void lock() {
         if (locked) {
             return;
@@ -189,28 +164,52 @@ public class TransformerContainer {
         definitionRegistry.trim();
         definitionRegistry.forEach((k, v) -> v.trim());
 
-        // now we will validate each transformer to ensure these all apply correctly
-        BootstrapMixinService mixinService = (BootstrapMixinService) MixinService.getService();
-        int flags = MixinEnvironment.getCurrentEnvironment().getOption(MixinEnvironment.Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
-
-        definitionRegistry.forEach((name, set) -> {
-            try {
-                ClassNode node = mixinService.getClassNode(name, true, flags);
-                LOGGER.debug("Validating AT for {}", node.name);
-                boolean failed = false;
-                for (ObjectIterator<Definition> iterator = set.iterator(); iterator.hasNext(); ) {
-                    failed = validateDefinitionTarget(iterator, node);
-                }
-                if (failed) {
-                    LOGGER.error("Failed to validate one or more AT targets for '{}', logging ClassNode tree", node.name);
-                    Util.logClassNodeTree(node);
-                }
-            } catch (ClassNotFoundException | IOException e) {
-                throw new RuntimeException("Unable to validate AT for " + name, e);
+        // compile lookup tables, so each target is transformed in a single pass over its members
+        definitionRegistry.forEach((name, set) -> compiledRegistry.put(name, CompiledTarget.compile(name, set)));
+        compiledRegistry.trim();
+
+        if (STRICT) validateAll();
+
+        locked = true;
+    }
+
+    private void validateAll() {
+        // validate each transformer up front to ensure these all apply correctly, so broken definitions fail
+        // the boot instead of the first load of their target. only the member signatures are needed, which
+        // the hierarchy index reads without the method bodies, and shares with frame computation and mixin
+        ClassHierarchyIndex hierarchy = HorizonLoader.getInstance().getLaunchService().getTransformer().getHierarchy();
+        List<String> invalid = new ArrayList<>();
+
+        compiledRegistry.forEach((name, target) -> {
+            AccessTransformerValidationEvent event = new AccessTransformerValidationEvent();
+            event.begin();
+            LOGGER.debug("Validating AT for {}", name);
+            ClassHierarchyIndex.Members members = hierarchy.members(name);
+            if (members == null) {
+                throw new RuntimeException("Unable to validate AT for " + name, new ClassNotFoundException(name));
+            }
+
+            List<String> missing = target.validate(members);
+            commit(event, name, target.size(), !missing.isEmpty());
+            if (!missing.isEmpty()) {
+                reportMissing(name, missing);
+                invalid.add(name);
             }
         });
 
-        locked = true;
+        if (!invalid.isEmpty()) {
+            throw new IllegalStateException("Strict access transformer validation failed for " + String.join(", ", invalid));
+        }
+    }
+
+    private static void commit(@NonNull AccessTransformerValidationEvent event, @NonNull String target, int definitions, boolean failed) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.target = target;
+        event.definitions = definitions;
+        event.failed = failed;
+        event.commit();
     }
 
     public void register(@NonNull HorizonPlugin plugin) {
@@ -346,53 +345,104 @@ public class TransformerContainer {
             .add(def);
     }
 
+    /**
+     * Feeds the locked definitions into the digest, in a stable order, for keying the transformation cache
+     *
+     * @param digest
+     *     the digest to update
+     */
+    public void fingerprint(@NonNull MessageDigest digest) {
+        definitionRegistry.keySet().stream().sorted().forEach(name -> {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            definitionRegistry.get(name).stream()
+                .map(Definition::toString)
+                .sorted()
+                .forEach(definition -> digest.update(definition.getBytes(StandardCharsets.UTF_8)));
+        });
+    }
+
     public boolean shouldTransform(@NonNull ClassNode node) {
         // node.name returns Class.getName(), where '.' are replaced by '/' as defined in ASM documentation
-        return this.definitionRegistry.containsKey(node.name);
+        return isTarget(node.name);
+    }
+
+    /**
+     * Checks if the class has any registered definitions, without needing its class node
+     *
+     * @param internalName
+     *     the internal name of the class
+     *
+     * @return {@code true} if the class is targeted by an access transformer
+     */
+    public boolean isTarget(@NonNull String internalName) {
+        return this.definitionRegistry.containsKey(internalName);
+    }
+
+    /**
+     * Gets the internal names of every class with registered definitions
+     *
+     * @return the targeted classes
+     */
+    public @NonNull Set<String> targets() {
+        return Collections.unmodifiableSet(this.definitionRegistry.keySet());
     }
 
-    public void transformNode(@NonNull ClassNode toTransform) throws Throwable {
+    /**
+     * Applies the definitions registered for the class node, in a single pass over its members. Definitions whose
+     * target member can't be located are reported and skipped, while the remaining definitions are still applied
+     *
+     * @param toTransform
+     *     the class node to transform
+     */
+    public void transformNode(@NonNull ClassNode toTransform) {
         LOGGER.debug("Access transforming node {}", toTransform.name);
-        Set<Definition> modifiers = definitionRegistry.get(toTransform.name);
-        if (modifiers == null) {
+        CompiledTarget target = compiledRegistry.get(toTransform.name);
+        if (target == null) {
             throw new IllegalStateException("Attempted to transform unregistered class node");
         }
 
-        for (Definition transformDef : modifiers) {
-            switch (transformDef.data()) {
-                case Definition.ClassData ignored -> {
-                    // is class transformer, try and modify class access
-                    LOGGER.debug("Applied class transformation to {}", toTransform.name);
-                    toTransform.access = transformDef.operation().apply(toTransform.access);
-                }
-                case Definition.FieldData fdata -> {
-                    String target = fdata.fieldName();
-                    FieldNode targetNode = toTransform.fields.stream()
-                        .filter(f -> f.name.equals(target))
-                        .findFirst().orElseThrow(COULDNT_LOCATE_FIELD);
-
-                    LOGGER.debug("Applied field transformation to {}:{}", toTransform.name, targetNode.name);
-                    targetNode.access = transformDef.operation().apply(targetNode.access);
-                }
-                case Definition.MethodData mdata -> {
-                    // the issue with this is the full method descriptor contains
-                    // the name + desc in the node, so we need to ensure that that
-                    // still works and such
-                    String methodDescriptor = mdata.methodDescriptor();
-                    int idx = methodDescriptor.indexOf('(');
-                    String methodName = methodDescriptor.substring(0, idx);
-                    String methodDesc = methodDescriptor.substring(idx);
-
-                    MethodNode targetNode = toTransform.methods.stream()
-                        .filter(m -> methodName.equals(m.name) && methodDesc.equals(m.desc))
-                        .findFirst().orElseThrow(COULDNT_LOCATE_METHOD);
-
-                    LOGGER.debug("Applied method transformation to {}:{}", toTransform.name, targetNode.name);
-                    targetNode.access = transformDef.operation().apply(targetNode.access);
-                }
-                default -> {
-                }
-            }
+        AccessTransformerValidationEvent event = new AccessTransformerValidationEvent();
+        event.begin();
+        List<String> missing = target.apply(toTransform);
+        commit(event, toTransform.name, target.size(), !missing.isEmpty());
+
+        if (!missing.isEmpty()) {
+            reportMissing(toTransform.name, missing);
+            LOGGER.error("Failed to validate one or more AT targets for '{}', logging ClassNode tree", toTransform.name);
+            Util.logClassNodeTree(toTransform);
+        }
+    }
+
+    /**
+     * Creates a class visitor applying the definitions registered for the class while it's visited, so no class node
+     * is needed. Definitions whose target member can't be located are reported once the class has been visited
+     *
+     * @param internalName
+     *     the internal name of the visited class
+     * @param api
+     *     the ASM api version
+     * @param delegate
+     *     the visitor to delegate to
+     *
+     * @return the access transforming visitor
+     */
+    public @NonNull ClassVisitor visitor(@NonNull String internalName, int api, @NonNull ClassVisitor delegate) {
+        CompiledTarget target = compiledRegistry.get(internalName);
+        if (target == null) {
+            throw new IllegalStateException("Attempted to transform unregistered class " + internalName);
+        }
+
+        AccessTransformerValidationEvent event = new AccessTransformerValidationEvent();
+        event.begin();
+        return new AccessTransformingVisitor(api, delegate, target, missing -> {
+            commit(event, internalName, target.size(), !missing.isEmpty());
+            if (!missing.isEmpty()) reportMissing(internalName, missing);
+        });
+    }
+
+    private static void reportMissing(@NonNull String name, @NonNull List<String> missing) {
+        for (String descriptor : missing) {
+            LOGGER.error("Unable to locate AT target '{}' for '{}'", descriptor, name);
         }
     }
 }
@@ -0,0 +1,237 @@
+package io.canvasmc.horizon.util;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * An immutable filter of class and package names, compiled into a prefix trie. Names are tested without allocating,
+ * and {@code '.'} and {@code '/'} are treated as the same character, so canonical class names, internal class names,
+ * and resource paths can all be tested against the same filter.
+ * <p>
+ * Every prefix is either excluded or included. The longest prefix matching a name decides its verdict, so included
+ * prefixes carve exceptions out of shorter excluded prefixes. Names matching no prefix are accepted
+ *
+ * @author dueris
+ */
+public final class PrefixFilter implements Predicate<String> {
+    private static final byte NONE = 0;
+    private static final byte EXCLUDE = 1;
+    private static final byte INCLUDE = 2;
+
+    private static final PrefixFilter EMPTY = new PrefixFilter(Map.of());
+
+    private final Map<String, Boolean> entries;
+    private final Node root;
+
+    private PrefixFilter(final @NonNull Map<String, Boolean> entries) {
+        this.entries = entries;
+        this.root = new Node();
+        entries.forEach((prefix, excluded) -> this.root.insert(prefix, 0, excluded ? EXCLUDE : INCLUDE));
+    }
+
+    /**
+     * Gets the filter accepting every name
+     *
+     * @return the empty filter
+     */
+    public static @NonNull PrefixFilter empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a new builder for a filter
+     *
+     * @return the builder
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a new builder containing all prefixes of this filter
+     *
+     * @return the builder
+     */
+    public @NonNull Builder toBuilder() {
+        return new Builder().merge(this);
+    }
+
+    /**
+     * Checks if the name is excluded by this filter
+     *
+     * @param name
+     *     the class name, internal class name, or resource path
+     *
+     * @return {@code true} if the longest prefix matching the name is excluded
+     */
+    public boolean excludes(final @NonNull CharSequence name) {
+        Node node = this.root;
+        byte verdict = node.verdict;
+        for (int i = 0, length = name.length(); i < length; i++) {
+            node = node.child(normalize(name.charAt(i)));
+            if (node == null) break;
+            if (node.verdict != NONE) verdict = node.verdict;
+        }
+        return verdict == EXCLUDE;
+    }
+
+    /**
+     * Checks if the name is accepted by this filter
+     *
+     * @param name
+     *     the class name, internal class name, or resource path
+     *
+     * @return {@code true} if the name is not excluded
+     */
+    @Override
+    public boolean test(final @NonNull String name) {
+        return !this.excludes(name);
+    }
+
+    /**
+     * Gets the prefixes of this filter, normalized to use {@code '/'} as separator
+     *
+     * @return the prefixes, mapped to {@code true} if excluded and {@code false} if included
+     */
+    public @NonNull Map<String, Boolean> entries() {
+        return Collections.unmodifiableMap(this.entries);
+    }
+
+    private static char normalize(final char character) {
+        return character == '.' ? '/' : character;
+    }
+
+    private static @NonNull String normalize(final @NonNull String prefix) {
+        return prefix.replace('.', '/');
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private byte verdict = NONE;
+
+        @Nullable Node child(final char key) {
+            final char[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return this.children[i];
+            }
+            return null;
+        }
+
+        void insert(final @NonNull String prefix, final int index, final byte verdict) {
+            if (index == prefix.length()) {
+                this.verdict = verdict;
+                return;
+            }
+
+            final char key = prefix.charAt(index);
+            Node child = this.child(key);
+            if (child == null) {
+                child = new Node();
+                this.keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+                this.children = Arrays.copyOf(this.children, this.children.length + 1);
+                this.keys[this.keys.length - 1] = key;
+                this.children[this.children.length - 1] = child;
+            }
+            child.insert(prefix, index + 1, verdict);
+        }
+    }
+
+    /**
+     * A builder for a {@link PrefixFilter}. When the same prefix is both excluded and included, the last call wins
+     *
+     * @author dueris
+     */
+    public static final class Builder {
+        private final Map<String, Boolean> entries = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Excludes all names starting with any of the prefixes
+         *
+         * @param prefixes
+         *     the prefixes to exclude
+         *
+         * @return this builder
+         */
+        public @NonNull Builder exclude(final String @NonNull ... prefixes) {
+            return this.exclude(Arrays.asList(prefixes));
+        }
+
+        /**
+         * Excludes all names starting with any of the prefixes
+         *
+         * @param prefixes
+         *     the prefixes to exclude
+         *
+         * @return this builder
+         */
+        public @NonNull Builder exclude(final @NonNull Collection<String> prefixes) {
+            for (final String prefix : prefixes) {
+                this.entries.put(normalize(prefix), true);
+            }
+            return this;
+        }
+
+        /**
+         * Includes all names starting with any of the prefixes, overriding shorter excluded prefixes
+         *
+         * @param prefixes
+         *     the prefixes to include
+         *
+         * @return this builder
+         */
+        public @NonNull Builder include(final String @NonNull ... prefixes) {
+            return this.include(Arrays.asList(prefixes));
+        }
+
+        /**
+         * Includes all names starting with any of the prefixes, overriding shorter excluded prefixes
+         *
+         * @param prefixes
+         *     the prefixes to include
+         *
+         * @return this builder
+         */
+        public @NonNull Builder include(final @NonNull Collection<String> prefixes) {
+            for (final String prefix : prefixes) {
+                this.entries.put(normalize(prefix), false);
+            }
+            return this;
+        }
+
+        /**
+         * Adds all prefixes of another filter
+         *
+         * @param filter
+         *     the filter to merge
+         *
+         * @return this builder
+         */
+        public @NonNull Builder merge(final @NonNull PrefixFilter filter) {
+            this.entries.putAll(filter.entries);
+            return this;
+        }
+
+        /**
+         * Compiles the filter
+         *
+         * @return the filter
+         */
+        public @NonNull PrefixFilter build() {
+            return this.entries.isEmpty() ? EMPTY : new PrefixFilter(new LinkedHashMap<>(this.entries));
+        }
+    }
+}
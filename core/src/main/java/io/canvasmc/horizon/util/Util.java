@@ -22,6 +22,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -144,9 +145,13 @@ public class Util {
     }
 
     public static void clearDirectory(@NonNull File directory) {
+        clearDirectory(directory, Set.of());
+    }
+
+    public static void clearDirectory(@NonNull File directory, @NonNull Set<String> retained) {
         File[] files = directory.listFiles();
         if (files != null) {
-            Arrays.stream(files).forEach(file -> {
+            Arrays.stream(files).filter(file -> !retained.contains(file.getName())).forEach(file -> {
                 if (file.isDirectory()) {
                     clearDirectory(file);
                 }
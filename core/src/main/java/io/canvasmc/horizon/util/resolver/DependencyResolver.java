@@ -1,6 +1,7 @@
 package io.canvasmc.horizon.util.resolver;
 
 import io.canvasmc.horizon.HorizonLoader;
+import io.canvasmc.horizon.metrics.event.DependencyResolveEvent;
 import io.canvasmc.horizon.util.FileJar;
 import io.canvasmc.horizon.util.Util;
 
@@ -43,6 +44,17 @@ public class DependencyResolver {
         this.repositorySupplier = repositorySupplier;
     }
 
+    private static void commit(DependencyResolveEvent event, Artifact artifact, Repository repository, File output) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.artifact = artifact.artifactId();
+        event.repository = repository == null ? null : repository.url().toString();
+        event.downloaded = repository != null;
+        event.size = output.length();
+        event.commit();
+    }
+
     /**
      * Resolves the dependencies from the artifact supplier and repository supplier, downloading and extracting them to
      * the specified out directory.
@@ -68,12 +80,16 @@ public class DependencyResolver {
             for (Artifact artifact : artifacts) {
                 // in testing, this is genuinely so much faster it's not even funny...
                 futures.add(service.submit(() -> {
+                    DependencyResolveEvent event = new DependencyResolveEvent();
+                    event.begin();
+
                     for (Repository repository : repositories) {
                         String path = out.getName() + "/" + artifact.path();
                         File output = new File(path);
 
                         try {
                             if (output.exists()) {
+                                commit(event, artifact, null, output);
                                 return new FileJar(output, new JarFile(output));
                             }
 
@@ -84,6 +100,7 @@ public class DependencyResolver {
                                 stream.write(downloaded);
                             }
 
+                            commit(event, artifact, repository, output);
                             return new FileJar(output, new JarFile(output));
                         } catch (SecurityException e) {
                             // this only happens on SHA-256 failure, kill immediately
@@ -2,19 +2,140 @@ package io.canvasmc.horizon.util.tree.parser;
 
 import io.canvasmc.horizon.util.tree.FormatParser;
 import io.canvasmc.horizon.util.tree.ParseError;
+import io.canvasmc.horizon.util.tree.ParseException;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class YamlParser implements FormatParser {
+    private static final Set<String> NULL_VALUES = Set.of("", "~", "null", "Null", "NULL");
+
     private final Yaml yaml = new Yaml();
 
+    /**
+     * Reads the scalar values of the requested top level keys from a YAML document, without building a tree. The root
+     * map is streamed as parser events and nested values are skipped. Like a tree, the last of duplicate keys wins, and
+     * aliases resolve to the scalar they anchor. Merge keys aren't resolved
+     *
+     * @param input
+     *     the in stream
+     * @param keys
+     *     the top level keys to read
+     *
+     * @return the found keys and their values, as written. Keys that are missing, null, or not scalars are absent
+     *
+     * @throws ParseException
+     *     if the root map is invalid, uses an undefined alias, or the root isn't a map
+     */
+    public static @NonNull Map<String, String> readTopLevel(final @NonNull InputStream input, final @NonNull Set<String> keys) throws ParseException {
+        return readTopLevel(new UnicodeReader(input), keys);
+    }
+
+    /**
+     * Reads the scalar values of the requested top level keys from a YAML document, without building a tree
+     *
+     * @param reader
+     *     the reader
+     * @param keys
+     *     the top level keys to read
+     *
+     * @return the found keys and their values, as written
+     *
+     * @throws ParseException
+     *     if the root map is invalid, uses an undefined alias, or the root isn't a map
+     * @see #readTopLevel(InputStream, Set)
+     */
+    public static @NonNull Map<String, String> readTopLevel(final @NonNull Reader reader, final @NonNull Set<String> keys) throws ParseException {
+        final Map<String, String> found = new LinkedHashMap<>();
+        // anchored collections are kept as null, as they never resolve to a scalar
+        final Map<String, @Nullable String> anchors = new HashMap<>();
+        try {
+            final Parser parser = new ParserImpl(new StreamReader(reader), new LoaderOptions());
+            Event event = parser.getEvent();
+            while (event.is(Event.ID.StreamStart) || event.is(Event.ID.DocumentStart)) {
+                event = parser.getEvent();
+            }
+            // an empty document
+            if (event.is(Event.ID.StreamEnd) || event.is(Event.ID.DocumentEnd)) return found;
+            if (!event.is(Event.ID.MappingStart)) {
+                throw new ParseException(List.of(new ParseError("YAML root must be a map/object")));
+            }
+
+            while (true) {
+                final Event key = parser.getEvent();
+                if (key.is(Event.ID.MappingEnd)) break;
+                // complex keys are never requested
+                skip(parser, key, anchors);
+                final String name = scalar(key, anchors);
+
+                final Event value = parser.getEvent();
+                skip(parser, value, anchors);
+                if (name == null || !keys.contains(name)) continue;
+
+                final String scalar = scalar(value, anchors);
+                if (scalar != null) found.put(name, scalar);
+                else found.remove(name);
+            }
+            return found;
+        } catch (ParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ParseException(List.of(new ParseError("YAML parsing failed", e)));
+        }
+    }
+
+    private static void skip(final @NonNull Parser parser, final @NonNull Event start, final @NonNull Map<String, @Nullable String> anchors) {
+        anchor(start, anchors);
+        if (!(start instanceof CollectionStartEvent)) return;
+
+        int depth = 1;
+        while (depth > 0) {
+            final Event event = parser.getEvent();
+            anchor(event, anchors);
+            if (event instanceof CollectionStartEvent) depth++;
+            else if (event instanceof CollectionEndEvent) depth--;
+        }
+    }
+
+    private static void anchor(final @NonNull Event event, final @NonNull Map<String, @Nullable String> anchors) {
+        // aliases are node events too, but name the anchor they refer to
+        if (event instanceof ScalarEvent scalar && scalar.getAnchor() != null) anchors.put(scalar.getAnchor(), value(scalar));
+        else if (event instanceof CollectionStartEvent collection && collection.getAnchor() != null) anchors.put(collection.getAnchor(), null);
+    }
+
+    private static @Nullable String scalar(final @NonNull Event event, final @NonNull Map<String, @Nullable String> anchors) throws ParseException {
+        if (event instanceof AliasEvent alias) {
+            if (!anchors.containsKey(alias.getAnchor())) {
+                throw new ParseException(List.of(new ParseError("Undefined YAML alias: *" + alias.getAnchor())));
+            }
+            return anchors.get(alias.getAnchor());
+        }
+        return event instanceof ScalarEvent scalar ? value(scalar) : null;
+    }
+
+    private static @Nullable String value(final @NonNull ScalarEvent scalar) {
+        return scalar.isPlain() && NULL_VALUES.contains(scalar.getValue()) ? null : scalar.getValue();
+    }
+
     @Override
     public @NonNull Map<String, Object> parse(InputStream input, List<ParseError> errors) throws Exception {
         try {
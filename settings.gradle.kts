@@ -20,3 +20,4 @@ enableFeaturePreview("TYPESAFE_PROJECT_ACCESSORS")
 
 include("core")
 include("test-plugin")
+include("benchmarks")